@@ -0,0 +1,99 @@
+package com.email.handler.service;
+
+import com.email.handler.model.EmailAttachment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AudioVideoProcessingService#isAudioVideoFile} over a mix of filenames,
+ * as called for every attachment by lane selection and routing, and
+ * {@link MediaSniffer#sniff} over the leading bytes of common media and document
+ * types, as run once for every attachment during parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttachmentClassificationBenchmark {
+
+    private static final String[] FILENAMES = {
+        "recording.mp3", "Meeting Notes.PDF", "clip.MOV", "voice memo.m4a", "archive.tar.gz",
+        "no-extension", "video.final.mkv", "image.jpeg", "interview.WAV", ".hidden"
+    };
+
+    private static final String[] HEADS = {
+        "RIFF....WAVEfmt ", "ID3\u0004\u0000\u0000\u0000\u0000\u0000\u0000", "....ftypM4A ", "....ftypisom",
+        "\u001AE\u00DF\u00A3", "fLaC", "%PDF-1.7", "PK\u0003\u0004", "\u00FF\u00D8\u00FF\u00E0"
+    };
+    private static final int HEAD_BYTES = 4096;
+
+    private ConfigurableApplicationContext context;
+    private AudioVideoProcessingService audioVideoProcessingService;
+    private EmailAttachment[] attachments;
+    private byte[][] contents;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        audioVideoProcessingService = context.getBean(AudioVideoProcessingService.class);
+
+        attachments = new EmailAttachment[FILENAMES.length];
+        for (int i = 0; i < FILENAMES.length; i++) {
+            attachments[i] = new EmailAttachment(FILENAMES[i], "application/octet-stream", new byte[0]);
+        }
+        // Loads the supported formats, as the first lookup of the application does
+        audioVideoProcessingService.hasAudioVideoAttachments(List.of(attachments));
+
+        // Each signature followed by arbitrary data, plus one that matches nothing
+        Random random = new Random(42);
+        contents = new byte[HEADS.length + 1][HEAD_BYTES];
+        for (int i = 0; i < contents.length; i++) {
+            random.nextBytes(contents[i]);
+            if (i < HEADS.length) {
+                byte[] head = HEADS[i].getBytes(StandardCharsets.ISO_8859_1);
+                System.arraycopy(head, 0, contents[i], 0, head.length);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void isAudioVideoFile(Blackhole blackhole) {
+        for (EmailAttachment attachment : attachments) {
+            blackhole.consume(audioVideoProcessingService.isAudioVideoFile(attachment));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void sniff(Blackhole blackhole) {
+        for (byte[] content : contents) {
+            blackhole.consume(MediaSniffer.sniff(content, "application/octet-stream"));
+        }
+    }
+}
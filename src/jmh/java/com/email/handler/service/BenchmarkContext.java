@@ -0,0 +1,67 @@
+package com.email.handler.service;
+
+import com.email.handler.config.BeanConfiguration;
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.ProcessedEmail;
+import com.email.handler.pipeline.PipelineMetrics;
+import com.email.handler.repository.ProcessedEmailRepository;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.util.stream.Stream;
+
+/**
+ * The services under benchmark wired as in the application, on an in-memory H2
+ * database and without the scheduled jobs, Redis or any network endpoint.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {RedisAutoConfiguration.class, RedisRepositoriesAutoConfiguration.class})
+@EntityScan(basePackageClasses = ProcessedEmail.class)
+@EnableJpaRepositories(basePackageClasses = ProcessedEmailRepository.class)
+@Import({
+    BeanConfiguration.class,
+    EmailHandlerProperties.class,
+    PipelineMetrics.class,
+    EmailSpoolService.class,
+    StageTimingService.class,
+    ImapEmailService.class,
+    EmailForwardingService.class,
+    AudioVideoProcessingService.class,
+    DuplicatePreventionService.class
+})
+public class BenchmarkContext {
+
+    static final String DEDUP_STORE_PATH = "target/jmh-dedup.mv.db";
+
+    /**
+     * Starts the context; further {@code --name=value} overrides may be given, for
+     * properties not already set here (repeated arguments are joined into a list).
+     */
+    public static ConfigurableApplicationContext start(String... overrides) {
+        // Passed as arguments so they take precedence over application.yml
+        return new SpringApplicationBuilder(BenchmarkContext.class)
+            .web(WebApplicationType.NONE)
+            .logStartupInfo(false)
+            .run(Stream.concat(Stream.of(
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--logging.level.root=WARN",
+                "--email.handler.smtp.host=localhost",
+                "--email.handler.smtp.username=forwarder@example.com",
+                "--email.handler.smtp.to-address=recipient@example.com",
+                "--email.handler.processing.spool-directory=target/jmh-spool",
+                "--email.handler.processing.timing-ledger.enabled=false",
+                "--email.handler.duplicate-prevention.enabled=true",
+                "--email.handler.duplicate-prevention.store-path=" + DEDUP_STORE_PATH
+            ), Stream.of(overrides)).toArray(String[]::new));
+    }
+}
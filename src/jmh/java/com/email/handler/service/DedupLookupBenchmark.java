@@ -0,0 +1,96 @@
+package com.email.handler.service;
+
+import com.email.handler.model.ProcessedEmail;
+import com.email.handler.repository.ProcessedEmailRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DuplicatePreventionService#isAlreadyProcessed} against an in-memory H2
+ * processed_emails table, for messages seen before (hit) and new ones (miss).
+ * With store {@code none} every lookup goes to the database, as on a cold cache;
+ * {@code embedded} answers hits from a freshly filled MVStore file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class DedupLookupBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"none", "embedded"})
+    public String store;
+
+    private ConfigurableApplicationContext context;
+    private DuplicatePreventionService duplicatePreventionService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Files.deleteIfExists(Path.of(BenchmarkContext.DEDUP_STORE_PATH));
+        context = BenchmarkContext.start("--email.handler.duplicate-prevention.store=" + store);
+        duplicatePreventionService = context.getBean(DuplicatePreventionService.class);
+
+        ProcessedEmailRepository repository = context.getBean(ProcessedEmailRepository.class);
+        List<ProcessedEmail> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            batch.add(new ProcessedEmail(messageId(i), ProcessedEmail.ProcessingStatus.FORWARDED));
+            if (batch.size() == 1000) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        repository.saveAll(batch);
+
+        DedupStore dedupStore = context.getBean(DedupStore.class);
+        for (int i = 0; i < rows; i++) {
+            dedupStore.remember(messageId(i), ProcessedEmail.ProcessingStatus.FORWARDED.name(), Duration.ofHours(24));
+        }
+        dedupStore.sync();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean hit() {
+        return duplicatePreventionService.isAlreadyProcessed(messageId(ThreadLocalRandom.current().nextInt(rows)));
+    }
+
+    @Benchmark
+    public boolean miss() {
+        return duplicatePreventionService.isAlreadyProcessed(messageId(rows + ThreadLocalRandom.current().nextInt(rows)));
+    }
+
+    private static String messageId(int i) {
+        return "<" + i + ".benchmark@example.com>";
+    }
+}
@@ -0,0 +1,111 @@
+package com.email.handler.service;
+
+import com.email.handler.model.EmailAttachment;
+import com.email.handler.model.EmailMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembly of the forwarded message by {@link EmailForwardingService#buildForward},
+ * including the transcript section from addTranscriptsToContent, serialized the
+ * way Transport.send would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ForwardBuildBenchmark {
+
+    @Param({"0", "1", "4"})
+    public int attachments;
+
+    @Param({"1048576"})
+    public int attachmentSize;
+
+    private ConfigurableApplicationContext context;
+    private EmailForwardingService emailForwardingService;
+    private EmailMessage email;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        emailForwardingService = context.getBean(EmailForwardingService.class);
+
+        email = new EmailMessage();
+        email.setMessageId("<benchmark@example.com>");
+        email.setFrom("sender@example.com");
+        email.setSubject("Recording of the weekly meeting");
+        email.setContent("Lorem ipsum dolor sit amet, consectetur adipiscing elit.\n".repeat(200));
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Message-ID", email.getMessageId());
+        headers.put("Date", "Mon, 1 Jan 2024 10:00:00 +0000");
+        email.setHeaders(headers);
+
+        List<EmailAttachment> list = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < attachments; i++) {
+            byte[] content = new byte[attachmentSize];
+            random.nextBytes(content);
+            EmailAttachment attachment = new EmailAttachment("recording-" + i + ".mp3", "audio/mpeg", content);
+            attachment.setAudioVideo(true);
+            attachment.setTranscript("Transcript line of the recording.\n".repeat(500));
+            list.add(attachment);
+        }
+        email.setAttachments(list);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long buildForward() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        emailForwardingService.buildForward(email, false).writeTo(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long buildForwardFirst() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        emailForwardingService.buildForward(email, true).writeTo(out);
+        return out.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
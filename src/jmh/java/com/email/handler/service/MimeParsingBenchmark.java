@@ -0,0 +1,144 @@
+package com.email.handler.service;
+
+import jakarta.mail.BodyPart;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.util.ByteArrayDataSource;
+import jakarta.mail.util.SharedByteArrayInputStream;
+import jakarta.activation.DataHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ImapEmailService#parseMessageContent} over synthetic messages, from a
+ * plain text body up to a 100 MB attachment, including a newsletter whose 20 MB
+ * HTML rendition is skipped in favour of its plain one. Each invocation parses a fresh
+ * MimeMessage over the same in-memory bytes, as the poller does over a spool file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MimeParsingBenchmark {
+
+    public enum Corpus {
+        TEXT, HTML, NESTED_MULTIPART, NEWSLETTER_20MB, ATTACHMENT_1MB, ATTACHMENT_10MB, ATTACHMENT_100MB
+    }
+
+    @Param
+    public Corpus corpus;
+
+    private ConfigurableApplicationContext context;
+    private ImapEmailService imapEmailService;
+    private Session session;
+    private byte[] message;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        imapEmailService = context.getBean(ImapEmailService.class);
+        session = Session.getInstance(new Properties());
+        message = buildMessage(session, corpus);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void parseMessageContent(Blackhole blackhole) throws Exception {
+        MimeMessage mimeMessage = new MimeMessage(session, new SharedByteArrayInputStream(message));
+        ImapEmailService.ParsedContent parsed = new ImapEmailService.ParsedContent();
+        imapEmailService.parseMessageContent(mimeMessage, "", parsed);
+        blackhole.consume(parsed.text);
+        blackhole.consume(parsed.attachments);
+    }
+
+    static byte[] buildMessage(Session session, Corpus corpus) throws Exception {
+        MimeMessage mimeMessage = new MimeMessage(session);
+        mimeMessage.setSubject("Benchmark " + corpus);
+        mimeMessage.setFrom("sender@example.com");
+        String text = "Lorem ipsum dolor sit amet, consectetur adipiscing elit.\n".repeat(200);
+
+        switch (corpus) {
+            case TEXT -> mimeMessage.setText(text);
+            case HTML -> mimeMessage.setContent("<html><body><p>" + text.replace("\n", "</p><p>") + "</p></body></html>",
+                "text/html; charset=UTF-8");
+            case NESTED_MULTIPART -> {
+                MimeMultipart alternative = new MimeMultipart("alternative");
+                alternative.addBodyPart(textPart(text, "text/plain"));
+                alternative.addBodyPart(textPart("<html><body>" + text + "</body></html>", "text/html"));
+                MimeBodyPart alternativePart = new MimeBodyPart();
+                alternativePart.setContent(alternative);
+
+                MimeMultipart mixed = new MimeMultipart("mixed");
+                mixed.addBodyPart(alternativePart);
+                mixed.addBodyPart(attachmentPart("notes.txt", "text/x-notes", 16 * 1024));
+                mimeMessage.setContent(mixed);
+            }
+            case NEWSLETTER_20MB -> {
+                // A short plain rendition next to a huge HTML one
+                String html = "<table><tr><td>" + text.replace("\n", "</td></tr><tr><td>") + "</td></tr></table>";
+                MimeMultipart alternative = new MimeMultipart("alternative");
+                alternative.addBodyPart(textPart(text, "text/plain"));
+                alternative.addBodyPart(textPart("<html><body>" + html.repeat(20 * 1024 * 1024 / html.length())
+                    + "</body></html>", "text/html"));
+                mimeMessage.setContent(alternative);
+            }
+            case ATTACHMENT_1MB -> mimeMessage.setContent(withAttachment(text, 1024 * 1024));
+            case ATTACHMENT_10MB -> mimeMessage.setContent(withAttachment(text, 10 * 1024 * 1024));
+            case ATTACHMENT_100MB -> mimeMessage.setContent(withAttachment(text, 100 * 1024 * 1024));
+        }
+        mimeMessage.saveChanges();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mimeMessage.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static MimeMultipart withAttachment(String text, int size) throws Exception {
+        MimeMultipart mixed = new MimeMultipart("mixed");
+        mixed.addBodyPart(textPart(text, "text/plain"));
+        mixed.addBodyPart(attachmentPart("recording.mp3", "audio/mpeg", size));
+        return mixed;
+    }
+
+    private static BodyPart textPart(String text, String type) throws Exception {
+        MimeBodyPart part = new MimeBodyPart();
+        part.setContent(text, type + "; charset=UTF-8");
+        return part;
+    }
+
+    private static BodyPart attachmentPart(String filename, String type, int size) throws Exception {
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        MimeBodyPart part = new MimeBodyPart();
+        part.setDataHandler(new DataHandler(new ByteArrayDataSource(content, type)));
+        part.setFileName(filename);
+        part.setDisposition(MimeBodyPart.ATTACHMENT);
+        return part;
+    }
+}
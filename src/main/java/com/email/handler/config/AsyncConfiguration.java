@@ -1,34 +1,57 @@
 package com.email.handler.config;
 
+import com.email.handler.pipeline.PipelineStage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.AsyncConfigurer;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.context.annotation.DependsOn;
 
-import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
 
 @Configuration
-public class AsyncConfiguration implements AsyncConfigurer {
+public class AsyncConfiguration {
 
     @Autowired
     private EmailHandlerProperties properties;
 
-    @Bean(name = "emailProcessingExecutor")
-    public Executor emailProcessingExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(properties.getProcessing().getThreadPoolSize());
-        executor.setMaxPoolSize(properties.getProcessing().getThreadPoolSize() * 2);
-        executor.setQueueCapacity(properties.getProcessing().getQueueCapacity());
-        executor.setThreadNamePrefix("email-processor-");
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        executor.initialize();
-        return executor;
+    // Upstream stages depend on downstream ones so that on shutdown they are stopped
+    // (and drained) first, while the stages they feed are still accepting work; the
+    // delivery hand-off that feeds the stages from outside stops after all of them
+    @Bean(name = "dedupStage", initMethod = "start", destroyMethod = "stop")
+    @DependsOn({"conversionStage", "forwardingStage", "statusStage"})
+    public PipelineStage dedupStage() {
+        return createStage("dedup", properties.getProcessing().getStages().getDedup());
     }
 
-    @Override
-    public Executor getAsyncExecutor() {
-        return emailProcessingExecutor();
+    @Bean(name = "conversionStage", initMethod = "start", destroyMethod = "stop")
+    @DependsOn({"forwardingStage", "statusStage"})
+    public PipelineStage conversionStage() {
+        return createStage("conversion", properties.getProcessing().getStages().getConversion());
     }
-}
\ No newline at end of file
+
+    @Bean(name = "forwardingStage", initMethod = "start", destroyMethod = "stop")
+    @DependsOn("statusStage")
+    public PipelineStage forwardingStage() {
+        return createStage("forwarding", properties.getProcessing().getStages().getForwarding());
+    }
+
+    @Bean(name = "statusStage", initMethod = "start", destroyMethod = "stop")
+    @DependsOn("deliveryHandoff")
+    public PipelineStage statusStage() {
+        return createStage("status", properties.getProcessing().getStages().getStatus());
+    }
+
+    private PipelineStage createStage(String name, EmailHandlerProperties.Stage stage) {
+        ThreadFactory threadFactory;
+        if (properties.getProcessing().getExecutionMode() == EmailHandlerProperties.ExecutionMode.VIRTUAL) {
+            // A parked virtual thread costs a few hundred bytes, so stages can run thousands of
+            // workers; DownstreamLimiter keeps the backends themselves from being overrun
+            threadFactory = Thread.ofVirtual().name(name + "-", 1).factory();
+        } else {
+            threadFactory = Thread.ofPlatform().name(name + "-", 1).daemon(true).factory();
+        }
+        EmailHandlerProperties.Lanes lanes = properties.getProcessing().getLanes();
+        return new PipelineStage(name, stage.getConcurrency(), stage.getQueueCapacity(), threadFactory,
+            lanes.getExpressWeight(), lanes.getMediaAging());
+    }
+}
@@ -1,16 +1,38 @@
 package com.email.handler.config;
 
+import com.email.handler.service.DedupStore;
+import com.email.handler.service.EmbeddedDedupStore;
+import com.email.handler.service.RedisDedupStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 @Configuration
 @EnableRetry
 public class BeanConfiguration {
 
+    // Built through the builder so conversion API calls are timed as http.client.requests
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder) {
+        return restTemplateBuilder.build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public DedupStore dedupStore(EmailHandlerProperties properties,
+                                 ObjectProvider<StringRedisTemplate> redisTemplate) throws IOException {
+        EmailHandlerProperties.DuplicatePrevention duplicatePrevention = properties.getDuplicatePrevention();
+        return switch (duplicatePrevention.getStore()) {
+            case NONE -> DedupStore.NONE;
+            // Fails at startup when Redis is selected but not configured
+            case REDIS -> new RedisDedupStore(redisTemplate.getObject());
+            case EMBEDDED -> new EmbeddedDedupStore(Path.of(duplicatePrevention.getStorePath()));
+        };
     }
-}
\ No newline at end of file
+}
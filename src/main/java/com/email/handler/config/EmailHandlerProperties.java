@@ -3,6 +3,11 @@ package com.email.handler.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Component
 @ConfigurationProperties(prefix = "email.handler")
 public class EmailHandlerProperties {
@@ -12,6 +17,11 @@ public class EmailHandlerProperties {
     private ConversionApi conversionApi = new ConversionApi();
     private Processing processing = new Processing();
     private DuplicatePrevention duplicatePrevention = new DuplicatePrevention();
+    private Retention retention = new Retention();
+    private FlightRecorder flightRecorder = new FlightRecorder();
+    private Ingestion ingestion = new Ingestion();
+    private Delivery delivery = new Delivery();
+    private Admin admin = new Admin();
     
     // Getters and setters
     public Imap getImap() { return imap; }
@@ -29,6 +39,21 @@ public class EmailHandlerProperties {
     public DuplicatePrevention getDuplicatePrevention() { return duplicatePrevention; }
     public void setDuplicatePrevention(DuplicatePrevention duplicatePrevention) { this.duplicatePrevention = duplicatePrevention; }
     
+    public Retention getRetention() { return retention; }
+    public void setRetention(Retention retention) { this.retention = retention; }
+    
+    public FlightRecorder getFlightRecorder() { return flightRecorder; }
+    public void setFlightRecorder(FlightRecorder flightRecorder) { this.flightRecorder = flightRecorder; }
+    
+    public Ingestion getIngestion() { return ingestion; }
+    public void setIngestion(Ingestion ingestion) { this.ingestion = ingestion; }
+    
+    public Delivery getDelivery() { return delivery; }
+    public void setDelivery(Delivery delivery) { this.delivery = delivery; }
+    
+    public Admin getAdmin() { return admin; }
+    public void setAdmin(Admin admin) { this.admin = admin; }
+    
     public static class Imap {
         private String host;
         private int port = 993;
@@ -38,6 +63,10 @@ public class EmailHandlerProperties {
         private String folder = "INBOX";
         private long fetchInterval = 5000;
         private int maxMessagesPerFetch = 1;
+        private AdaptiveFetch adaptiveFetch = new AdaptiveFetch();
+        private BacklogDrain backlogDrain = new BacklogDrain();
+        private Search search = new Search();
+        private PostProcess postProcess = new PostProcess();
         
         // Getters and setters
         public String getHost() { return host; }
@@ -63,6 +92,119 @@ public class EmailHandlerProperties {
         
         public int getMaxMessagesPerFetch() { return maxMessagesPerFetch; }
         public void setMaxMessagesPerFetch(int maxMessagesPerFetch) { this.maxMessagesPerFetch = maxMessagesPerFetch; }
+        
+        public AdaptiveFetch getAdaptiveFetch() { return adaptiveFetch; }
+        public void setAdaptiveFetch(AdaptiveFetch adaptiveFetch) { this.adaptiveFetch = adaptiveFetch; }
+        
+        public BacklogDrain getBacklogDrain() { return backlogDrain; }
+        public void setBacklogDrain(BacklogDrain backlogDrain) { this.backlogDrain = backlogDrain; }
+        
+        public Search getSearch() { return search; }
+        public void setSearch(Search search) { this.search = search; }
+        
+        public PostProcess getPostProcess() { return postProcess; }
+        public void setPostProcess(PostProcess postProcess) { this.postProcess = postProcess; }
+    }
+    
+    public static class Search {
+        private boolean unseen = false;
+        private int sinceDays = 0;
+        private int maxSize = 0;
+        private Map<String, String> headers = new LinkedHashMap<>();
+        
+        // Getters and setters
+        public boolean isUnseen() { return unseen; }
+        public void setUnseen(boolean unseen) { this.unseen = unseen; }
+        
+        public int getSinceDays() { return sinceDays; }
+        public void setSinceDays(int sinceDays) { this.sinceDays = sinceDays; }
+        
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+        
+        public Map<String, String> getHeaders() { return headers; }
+        public void setHeaders(Map<String, String> headers) { this.headers = headers; }
+    }
+    
+    public static class PostProcess {
+        private PostProcessAction action = PostProcessAction.NONE;
+        private String processedFolder = "Processed";
+        private String flag = "$Forwarded";
+        private int batchSize = 100;
+        private long interval = 30000;
+        private boolean expungeAll = false;
+        
+        // Getters and setters
+        public PostProcessAction getAction() { return action; }
+        public void setAction(PostProcessAction action) { this.action = action; }
+        
+        public String getProcessedFolder() { return processedFolder; }
+        public void setProcessedFolder(String processedFolder) { this.processedFolder = processedFolder; }
+        
+        public String getFlag() { return flag; }
+        public void setFlag(String flag) { this.flag = flag; }
+        
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        
+        public long getInterval() { return interval; }
+        public void setInterval(long interval) { this.interval = interval; }
+        
+        public boolean isExpungeAll() { return expungeAll; }
+        public void setExpungeAll(boolean expungeAll) { this.expungeAll = expungeAll; }
+    }
+    
+    public enum PostProcessAction {
+        // Leave forwarded messages untouched
+        NONE,
+        // Mark forwarded messages \Seen plus the configured keyword
+        FLAG,
+        // Move forwarded messages to the processed folder (MOVE, or COPY + \Deleted without it)
+        MOVE
+    }
+    
+    public static class BacklogDrain {
+        private boolean enabled = true;
+        private int threshold = 200;
+        private int connections = 4;
+        private int minPartitionSize = 25;
+        
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public int getThreshold() { return threshold; }
+        public void setThreshold(int threshold) { this.threshold = threshold; }
+        
+        public int getConnections() { return connections; }
+        public void setConnections(int connections) { this.connections = connections; }
+        
+        public int getMinPartitionSize() { return minPartitionSize; }
+        public void setMinPartitionSize(int minPartitionSize) { this.minPartitionSize = minPartitionSize; }
+    }
+    
+    public static class AdaptiveFetch {
+        private boolean enabled = true;
+        private int maxBatchSize = 500;
+        private long minInterval = 500;
+        private long maxInterval = 60000;
+        private double highWatermark = 0.8;
+        
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public int getMaxBatchSize() { return maxBatchSize; }
+        public void setMaxBatchSize(int maxBatchSize) { this.maxBatchSize = maxBatchSize; }
+        
+        public long getMinInterval() { return minInterval; }
+        public void setMinInterval(long minInterval) { this.minInterval = minInterval; }
+        
+        public long getMaxInterval() { return maxInterval; }
+        public void setMaxInterval(long maxInterval) { this.maxInterval = maxInterval; }
+        
+        public double getHighWatermark() { return highWatermark; }
+        public void setHighWatermark(double highWatermark) { this.highWatermark = highWatermark; }
     }
     
     public static class Smtp {
@@ -118,18 +260,36 @@ public class EmailHandlerProperties {
     }
     
     public static class Processing {
-        private int threadPoolSize = 10;
-        private int queueCapacity = 1000;
+        private int maxInFlight = 200;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.BLOCK;
+        private long dispatchTimeout = 30000;
         private String supportedAudioFormats = "mp3,wav,m4a,aac,flac";
         private String supportedVideoFormats = "mp4,avi,mov,mkv,wmv";
         private String maxFileSize = "100MB";
+        private String spoolDirectory = "./data/spool";
+        private int maxRetryAttempts = 5;
+        private int retryBatchSize = 50;
+        private long retryInitialDelay = 60000;
+        private long retryMaxDelay = 3600000;
+        private Stages stages = new Stages();
+        private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+        private DownstreamLimits downstreamLimits = new DownstreamLimits();
+        private long pinningThreshold = 20;
+        private Lanes lanes = new Lanes();
+        private DeliveryMode deliveryMode = DeliveryMode.COMBINED;
+        private OrderingMode ordering = OrderingMode.NONE;
+        private TimingLedger timingLedger = new TimingLedger();
+        private Body body = new Body();
         
         // Getters and setters
-        public int getThreadPoolSize() { return threadPoolSize; }
-        public void setThreadPoolSize(int threadPoolSize) { this.threadPoolSize = threadPoolSize; }
+        public int getMaxInFlight() { return maxInFlight; }
+        public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
         
-        public int getQueueCapacity() { return queueCapacity; }
-        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public RejectionPolicy getRejectionPolicy() { return rejectionPolicy; }
+        public void setRejectionPolicy(RejectionPolicy rejectionPolicy) { this.rejectionPolicy = rejectionPolicy; }
+        
+        public long getDispatchTimeout() { return dispatchTimeout; }
+        public void setDispatchTimeout(long dispatchTimeout) { this.dispatchTimeout = dispatchTimeout; }
         
         public String getSupportedAudioFormats() { return supportedAudioFormats; }
         public void setSupportedAudioFormats(String supportedAudioFormats) { this.supportedAudioFormats = supportedAudioFormats; }
@@ -139,11 +299,208 @@ public class EmailHandlerProperties {
         
         public String getMaxFileSize() { return maxFileSize; }
         public void setMaxFileSize(String maxFileSize) { this.maxFileSize = maxFileSize; }
+        
+        public String getSpoolDirectory() { return spoolDirectory; }
+        public void setSpoolDirectory(String spoolDirectory) { this.spoolDirectory = spoolDirectory; }
+        
+        public int getMaxRetryAttempts() { return maxRetryAttempts; }
+        public void setMaxRetryAttempts(int maxRetryAttempts) { this.maxRetryAttempts = maxRetryAttempts; }
+        
+        public int getRetryBatchSize() { return retryBatchSize; }
+        public void setRetryBatchSize(int retryBatchSize) { this.retryBatchSize = retryBatchSize; }
+        
+        public long getRetryInitialDelay() { return retryInitialDelay; }
+        public void setRetryInitialDelay(long retryInitialDelay) { this.retryInitialDelay = retryInitialDelay; }
+        
+        public long getRetryMaxDelay() { return retryMaxDelay; }
+        public void setRetryMaxDelay(long retryMaxDelay) { this.retryMaxDelay = retryMaxDelay; }
+        
+        public Stages getStages() { return stages; }
+        public void setStages(Stages stages) { this.stages = stages; }
+        
+        public ExecutionMode getExecutionMode() { return executionMode; }
+        public void setExecutionMode(ExecutionMode executionMode) { this.executionMode = executionMode; }
+        
+        public DownstreamLimits getDownstreamLimits() { return downstreamLimits; }
+        public void setDownstreamLimits(DownstreamLimits downstreamLimits) { this.downstreamLimits = downstreamLimits; }
+        
+        public long getPinningThreshold() { return pinningThreshold; }
+        public void setPinningThreshold(long pinningThreshold) { this.pinningThreshold = pinningThreshold; }
+        
+        public Lanes getLanes() { return lanes; }
+        public void setLanes(Lanes lanes) { this.lanes = lanes; }
+        
+        public DeliveryMode getDeliveryMode() { return deliveryMode; }
+        public void setDeliveryMode(DeliveryMode deliveryMode) { this.deliveryMode = deliveryMode; }
+        
+        public OrderingMode getOrdering() { return ordering; }
+        public void setOrdering(OrderingMode ordering) { this.ordering = ordering; }
+        
+        public TimingLedger getTimingLedger() { return timingLedger; }
+        public void setTimingLedger(TimingLedger timingLedger) { this.timingLedger = timingLedger; }
+        
+        public Body getBody() { return body; }
+        public void setBody(Body body) { this.body = body; }
+    }
+    
+    public static class Body {
+        private BodyPreference preferred = BodyPreference.PLAIN;
+        private int maxChars = 1048576;
+        private String truncationMarker = "\n\n[... message truncated ...]";
+        private boolean attachFullBody = true;
+        
+        // Getters and setters
+        public BodyPreference getPreferred() { return preferred; }
+        public void setPreferred(BodyPreference preferred) { this.preferred = preferred; }
+        
+        public int getMaxChars() { return maxChars; }
+        public void setMaxChars(int maxChars) { this.maxChars = maxChars; }
+        
+        public String getTruncationMarker() { return truncationMarker; }
+        public void setTruncationMarker(String truncationMarker) { this.truncationMarker = truncationMarker; }
+        
+        public boolean isAttachFullBody() { return attachFullBody; }
+        public void setAttachFullBody(boolean attachFullBody) { this.attachFullBody = attachFullBody; }
+    }
+    
+    public enum BodyPreference {
+        // The text/plain rendition of multipart/alternative mail, else the HTML one
+        PLAIN,
+        // The text/html rendition, else the plain one
+        HTML
+    }
+    
+    public static class TimingLedger {
+        private boolean enabled = true;
+        private int batchSize = 200;
+        private long flushInterval = 2000;
+        private int maxBuffered = 50000;
+        
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        
+        public long getFlushInterval() { return flushInterval; }
+        public void setFlushInterval(long flushInterval) { this.flushInterval = flushInterval; }
+        
+        public int getMaxBuffered() { return maxBuffered; }
+        public void setMaxBuffered(int maxBuffered) { this.maxBuffered = maxBuffered; }
+    }
+    
+    public enum OrderingMode {
+        // Emails are forwarded as soon as they are ready
+        NONE,
+        // Emails of one conversation (References / In-Reply-To) are forwarded in arrival order
+        THREAD,
+        // Emails from one sender are forwarded in arrival order
+        SENDER
+    }
+    
+    public enum DeliveryMode {
+        // Forward once, after all transcripts are available
+        COMBINED,
+        // Forward the original right away and send the transcripts as a threaded follow-up
+        FORWARD_FIRST
+    }
+    
+    public static class Lanes {
+        private int expressReserved = 20;
+        private int expressWeight = 4;
+        private long mediaAging = 30000;
+        
+        // Getters and setters
+        public int getExpressReserved() { return expressReserved; }
+        public void setExpressReserved(int expressReserved) { this.expressReserved = expressReserved; }
+        
+        public int getExpressWeight() { return expressWeight; }
+        public void setExpressWeight(int expressWeight) { this.expressWeight = expressWeight; }
+        
+        public long getMediaAging() { return mediaAging; }
+        public void setMediaAging(long mediaAging) { this.mediaAging = mediaAging; }
+    }
+    
+    public enum ExecutionMode {
+        // Stage workers are pooled platform threads
+        PLATFORM,
+        // Stage workers are virtual threads; downstream-limits bound the real backend concurrency
+        VIRTUAL
+    }
+    
+    public static class DownstreamLimits {
+        private int imap = 4;
+        private int smtp = 10;
+        private int conversion = 20;
+        private int database = 10;
+        
+        // Getters and setters
+        public int getImap() { return imap; }
+        public void setImap(int imap) { this.imap = imap; }
+        
+        public int getSmtp() { return smtp; }
+        public void setSmtp(int smtp) { this.smtp = smtp; }
+        
+        public int getConversion() { return conversion; }
+        public void setConversion(int conversion) { this.conversion = conversion; }
+        
+        public int getDatabase() { return database; }
+        public void setDatabase(int database) { this.database = database; }
+    }
+    
+    public enum RejectionPolicy {
+        // Wait up to dispatch-timeout for in-flight capacity, then defer the rest
+        BLOCK,
+        // Admit only what fits right now and leave the rest for the next poll
+        DEFER
+    }
+    
+    public static class Stages {
+        private Stage dedup = new Stage(2, 100);
+        private Stage conversion = new Stage(10, 100);
+        private Stage forwarding = new Stage(4, 100);
+        private Stage status = new Stage(2, 500);
+        
+        // Getters and setters
+        public Stage getDedup() { return dedup; }
+        public void setDedup(Stage dedup) { this.dedup = dedup; }
+        
+        public Stage getConversion() { return conversion; }
+        public void setConversion(Stage conversion) { this.conversion = conversion; }
+        
+        public Stage getForwarding() { return forwarding; }
+        public void setForwarding(Stage forwarding) { this.forwarding = forwarding; }
+        
+        public Stage getStatus() { return status; }
+        public void setStatus(Stage status) { this.status = status; }
+    }
+    
+    public static class Stage {
+        private int concurrency;
+        private int queueCapacity;
+        
+        public Stage() {}
+        
+        public Stage(int concurrency, int queueCapacity) {
+            this.concurrency = concurrency;
+            this.queueCapacity = queueCapacity;
+        }
+        
+        // Getters and setters
+        public int getConcurrency() { return concurrency; }
+        public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+        
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
     }
     
     public static class DuplicatePrevention {
         private boolean enabled = true;
         private String cacheDuration = "24h";
+        private DedupStoreType store = DedupStoreType.EMBEDDED;
+        private String storePath = "./data/dedup.mv.db";
+        private long syncInterval = 200;
         
         // Getters and setters
         public boolean isEnabled() { return enabled; }
@@ -151,5 +508,190 @@ public class EmailHandlerProperties {
         
         public String getCacheDuration() { return cacheDuration; }
         public void setCacheDuration(String cacheDuration) { this.cacheDuration = cacheDuration; }
+        
+        public DedupStoreType getStore() { return store; }
+        public void setStore(DedupStoreType store) { this.store = store; }
+        
+        public String getStorePath() { return storePath; }
+        public void setStorePath(String storePath) { this.storePath = storePath; }
+        
+        public long getSyncInterval() { return syncInterval; }
+        public void setSyncInterval(long syncInterval) { this.syncInterval = syncInterval; }
+    }
+    
+    public enum DedupStoreType {
+        // Every lookup goes to the processed_emails table
+        NONE,
+        // Redis, shared by all nodes polling the mailbox
+        REDIS,
+        // Local MVStore file next to the database, for single-node deployments
+        EMBEDDED
+    }
+    
+    public static class Retention {
+        private boolean enabled = true;
+        private long purgeInterval = 3600000;
+        private int batchSize = 500;
+        private long batchPause = 200;
+        private boolean rollupEnabled = true;
+        
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public long getPurgeInterval() { return purgeInterval; }
+        public void setPurgeInterval(long purgeInterval) { this.purgeInterval = purgeInterval; }
+        
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        
+        public long getBatchPause() { return batchPause; }
+        public void setBatchPause(long batchPause) { this.batchPause = batchPause; }
+        
+        public boolean isRollupEnabled() { return rollupEnabled; }
+        public void setRollupEnabled(boolean rollupEnabled) { this.rollupEnabled = rollupEnabled; }
+    }
+    
+    public static class FlightRecorder {
+        private boolean enabled = false;
+        private String baseSettings = "default";
+        private long maxAge = 21600000;
+        private long maxSize = 268435456;
+        private String destination = "./data/jfr/email-handler.jfr";
+        
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public String getBaseSettings() { return baseSettings; }
+        public void setBaseSettings(String baseSettings) { this.baseSettings = baseSettings; }
+        
+        public long getMaxAge() { return maxAge; }
+        public void setMaxAge(long maxAge) { this.maxAge = maxAge; }
+        
+        public long getMaxSize() { return maxSize; }
+        public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+        
+        public String getDestination() { return destination; }
+        public void setDestination(String destination) { this.destination = destination; }
+    }
+    
+    public static class Ingestion {
+        private boolean enabled = false;
+        private List<String> paths = new ArrayList<>();
+        private long scanInterval = 300000;
+        private int batchSize = 100;
+        private int parallelism = 4;
+        
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public List<String> getPaths() { return paths; }
+        public void setPaths(List<String> paths) { this.paths = paths; }
+        
+        public long getScanInterval() { return scanInterval; }
+        public void setScanInterval(long scanInterval) { this.scanInterval = scanInterval; }
+        
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    }
+    
+    public static class Delivery {
+        private List<DeliverySinkType> sinks = new ArrayList<>(List.of(DeliverySinkType.SMTP));
+        private Maildir maildir = new Maildir();
+        private Webhook webhook = new Webhook();
+        
+        // Getters and setters
+        public List<DeliverySinkType> getSinks() { return sinks; }
+        public void setSinks(List<DeliverySinkType> sinks) { this.sinks = sinks; }
+        
+        public Maildir getMaildir() { return maildir; }
+        public void setMaildir(Maildir maildir) { this.maildir = maildir; }
+        
+        public Webhook getWebhook() { return webhook; }
+        public void setWebhook(Webhook webhook) { this.webhook = webhook; }
+    }
+    
+    public enum DeliverySinkType {
+        // Forward through the SMTP relay
+        SMTP,
+        // Drop a file per email into a local Maildir
+        MAILDIR,
+        // POST batches of records to an HTTP endpoint
+        WEBHOOK
+    }
+    
+    public static class Maildir {
+        private String path = "./data/delivery";
+        private MaildirFormat format = MaildirFormat.MIME;
+        
+        // Getters and setters
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+        
+        public MaildirFormat getFormat() { return format; }
+        public void setFormat(MaildirFormat format) { this.format = format; }
+    }
+    
+    public enum MaildirFormat {
+        // The forward as it would be sent over SMTP, readable by mail tools
+        MIME,
+        // The same JSON record the webhook sends
+        JSON
+    }
+    
+    public static class Webhook {
+        private String url;
+        private String authorization;
+        private WebhookFormat format = WebhookFormat.NDJSON;
+        private int batchSize = 100;
+        private long linger = 1000;
+        private int timeout = 30000;
+        
+        // Getters and setters
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        
+        public String getAuthorization() { return authorization; }
+        public void setAuthorization(String authorization) { this.authorization = authorization; }
+        
+        public WebhookFormat getFormat() { return format; }
+        public void setFormat(WebhookFormat format) { this.format = format; }
+        
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        
+        public long getLinger() { return linger; }
+        public void setLinger(long linger) { this.linger = linger; }
+        
+        public int getTimeout() { return timeout; }
+        public void setTimeout(int timeout) { this.timeout = timeout; }
+    }
+    
+    public enum WebhookFormat {
+        // One JSON array per batch
+        JSON,
+        // One record per line (application/x-ndjson)
+        NDJSON
+    }
+    
+    public static class Admin {
+        private int exportChunkSize = 1000;
+        private double reprocessRate = 20;
+        private int reprocessBatchSize = 50;
+        
+        // Getters and setters
+        public int getExportChunkSize() { return exportChunkSize; }
+        public void setExportChunkSize(int exportChunkSize) { this.exportChunkSize = exportChunkSize; }
+        
+        public double getReprocessRate() { return reprocessRate; }
+        public void setReprocessRate(double reprocessRate) { this.reprocessRate = reprocessRate; }
+        
+        public int getReprocessBatchSize() { return reprocessBatchSize; }
+        public void setReprocessBatchSize(int reprocessBatchSize) { this.reprocessBatchSize = reprocessBatchSize; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.email.handler.config;
+
+import com.email.handler.pipeline.AdaptivePollController;
+import com.email.handler.pipeline.DownstreamLimiter;
+import com.email.handler.pipeline.EmailDispatcher;
+import com.email.handler.pipeline.KeyedSequencer;
+import com.email.handler.pipeline.Lane;
+import com.email.handler.pipeline.PipelineStage;
+import com.email.handler.service.StageTimingService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Gauges over the pipeline's own executors and limits. Connection pools (Hikari,
+ * Lettuce) and RestTemplate calls are instrumented by Spring Boot itself.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder pipelineStageMetrics(List<PipelineStage> stages) {
+        return registry -> {
+            for (PipelineStage stage : stages) {
+                String name = stage.getName();
+                Gauge.builder("email.stage.active", stage, PipelineStage::getActiveCount)
+                    .tag("stage", name).description("Workers currently running a task").register(registry);
+                Gauge.builder("email.stage.workers", stage, PipelineStage::getConcurrency)
+                    .tag("stage", name).register(registry);
+                Gauge.builder("email.stage.queue.capacity", stage, PipelineStage::getQueueCapacity)
+                    .tag("stage", name).register(registry);
+                for (Lane lane : Lane.values()) {
+                    Gauge.builder("email.stage.queue.depth", stage, s -> s.getQueueDepth(lane))
+                        .tags("stage", name, "lane", lane.name()).register(registry);
+                }
+                FunctionCounter.builder("email.stage.tasks.completed", stage, PipelineStage::getCompletedCount)
+                    .tag("stage", name).register(registry);
+                FunctionCounter.builder("email.stage.tasks.failed", stage, PipelineStage::getFailedCount)
+                    .tag("stage", name).register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder dispatchMetrics(EmailDispatcher dispatcher, DownstreamLimiter limiter,
+                                       AdaptivePollController pollController, KeyedSequencer sequencer) {
+        return registry -> {
+            for (Lane lane : Lane.values()) {
+                Gauge.builder("email.dispatch.in.flight", dispatcher, d -> d.getInFlightCount(lane))
+                    .tag("lane", lane.name()).register(registry);
+            }
+            for (DownstreamLimiter.Downstream downstream : DownstreamLimiter.Downstream.values()) {
+                Gauge.builder("email.downstream.in.use", limiter, l -> l.getInUse(downstream))
+                    .tag("downstream", downstream.name()).register(registry);
+                Gauge.builder("email.downstream.limit", limiter, l -> l.getLimit(downstream))
+                    .tag("downstream", downstream.name()).register(registry);
+            }
+
+            Gauge.builder("email.fetch.batch.size", pollController, AdaptivePollController::getBatchSize)
+                .register(registry);
+            Gauge.builder("email.fetch.interval", pollController, AdaptivePollController::getInterval)
+                .baseUnit("milliseconds").register(registry);
+            Gauge.builder("email.fetch.backlog", pollController, AdaptivePollController::getLastBacklog)
+                .register(registry);
+            for (AdaptivePollController.Decision decision : AdaptivePollController.Decision.values()) {
+                FunctionCounter.builder("email.fetch.decisions", pollController, c -> c.getDecisionCount(decision))
+                    .tag("decision", decision.name()).register(registry);
+            }
+
+            Gauge.builder("email.ordering.active.keys", sequencer, KeyedSequencer::getActiveKeys)
+                .register(registry);
+            FunctionCounter.builder("email.ordering.deferred", sequencer, KeyedSequencer::getDeferredCount)
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder timingLedgerMetrics(StageTimingService stageTimingService) {
+        return registry -> {
+            Gauge.builder("email.timing.buffered", stageTimingService, StageTimingService::getBufferedCount)
+                .register(registry);
+            FunctionCounter.builder("email.timing.written", stageTimingService, StageTimingService::getWrittenCount)
+                .register(registry);
+            FunctionCounter.builder("email.timing.dropped", stageTimingService, StageTimingService::getDroppedCount)
+                .register(registry);
+        };
+    }
+}
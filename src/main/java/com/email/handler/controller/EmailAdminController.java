@@ -0,0 +1,103 @@
+package com.email.handler.controller;
+
+import com.email.handler.model.ProcessedEmail;
+import com.email.handler.repository.ProcessedEmailRepository;
+import com.email.handler.service.EmailAdminService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * Bulk operations on processed emails. The status export streams every matching row
+ * as NDJSON, read chunk by chunk in id order; a client that lost the connection
+ * resumes with the last id it received as {@code afterId}. Replays of failed emails
+ * run in the background at a bounded rate and are followed through {@code GET /reprocess}.
+ */
+@RestController
+@RequestMapping("/api/emails")
+public class EmailAdminController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private EmailAdminService emailAdminService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @GetMapping("/status")
+    public ResponseEntity<StreamingResponseBody> exportStatus(
+            @RequestParam(required = false) ProcessedEmail.ProcessingStatus status,
+            @RequestParam(required = false) String folder,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") long afterId) {
+        EmailAdminService.EmailQuery query = new EmailAdminService.EmailQuery(status, folder, from, to);
+        StreamingResponseBody body = outputStream -> {
+            BufferedOutputStream out = new BufferedOutputStream(outputStream);
+            long position = afterId;
+            Long lastId;
+            while ((lastId = emailAdminService.exportChunk(query, position, row -> {
+                out.write(objectMapper.writeValueAsBytes(StatusLine.of(row)));
+                out.write('\n');
+            })) != null) {
+                position = lastId;
+                out.flush();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @PostMapping("/reprocess")
+    public ResponseEntity<EmailAdminService.ReprocessStatus> startReprocess(
+            @RequestParam(required = false) String folder,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(required = false) Double rate) {
+        EmailAdminService.EmailQuery query = new EmailAdminService.EmailQuery(
+            ProcessedEmail.ProcessingStatus.FAILED, folder, from, to);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(emailAdminService.startReprocess(query, afterId, rate));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(emailAdminService.getReprocessStatus());
+        }
+    }
+
+    @GetMapping("/reprocess")
+    public ResponseEntity<EmailAdminService.ReprocessStatus> reprocessStatus() {
+        return ResponseEntity.ofNullable(emailAdminService.getReprocessStatus());
+    }
+
+    @DeleteMapping("/reprocess")
+    public ResponseEntity<EmailAdminService.ReprocessStatus> cancelReprocess() {
+        return ResponseEntity.ofNullable(emailAdminService.cancelReprocess());
+    }
+
+    public record StatusLine(long id, String messageId, ProcessedEmail.ProcessingStatus status,
+                             ProcessedEmail.ProcessingStatus completedStage, String folder, Long uid,
+                             LocalDateTime processedAt, Integer retryCount, LocalDateTime nextRetryAt,
+                             ProcessedEmail.FollowUpState followUpState, String errorMessage) {
+
+        static StatusLine of(ProcessedEmailRepository.StatusRow row) {
+            return new StatusLine(row.getId(), row.getMessageId(), row.getStatus(), row.getCompletedStage(),
+                row.getFolder(), row.getUid(), row.getProcessedAt(), row.getRetryCount(), row.getNextRetryAt(),
+                row.getFollowUpState(), row.getErrorMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.email.handler.controller;
+
+import com.email.handler.model.EmailStageTiming;
+import com.email.handler.service.StageTimingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read side of the stage timing ledger: the slowest emails of a time window, each
+ * with the stages it went through. Pages are keyset-based; the {@code next} cursor
+ * of a response is passed back as {@code afterDuration}/{@code afterId}.
+ */
+@RestController
+@RequestMapping("/api/emails")
+public class EmailTimingController {
+
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private StageTimingService stageTimingService;
+
+    @GetMapping("/slowest")
+    public SlowestPage slowest(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) Long afterDuration,
+            @RequestParam(required = false) Long afterId) {
+        LocalDateTime windowEnd = to != null ? to : LocalDateTime.now();
+        LocalDateTime windowStart = from != null ? from : windowEnd.minusHours(24);
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        List<EmailStageTiming> runs = stageTimingService.findSlowest(windowStart, windowEnd, afterDuration, afterId, pageSize);
+        Map<Long, List<EmailStageTiming>> breakdown = stageTimingService.findBreakdown(runs);
+
+        List<SlowEmail> items = runs.stream()
+            .map(run -> new SlowEmail(
+                run.getMessageId(),
+                run.getDetail(),
+                run.getStartedAt(),
+                run.getEndedAt(),
+                run.getDurationMillis(),
+                breakdown.get(run.getId()).stream().map(StageEntry::of).toList()))
+            .toList();
+
+        Cursor next = null;
+        if (runs.size() == pageSize) {
+            EmailStageTiming last = runs.get(runs.size() - 1);
+            next = new Cursor(last.getDurationMillis(), last.getId());
+        }
+        return new SlowestPage(windowStart, windowEnd, items, next);
+    }
+
+    public record SlowestPage(LocalDateTime from, LocalDateTime to, List<SlowEmail> items, Cursor next) {}
+
+    public record SlowEmail(String messageId, String status, LocalDateTime startedAt, LocalDateTime endedAt,
+                            long durationMillis, List<StageEntry> stages) {}
+
+    public record StageEntry(String stage, String detail, LocalDateTime startedAt, LocalDateTime endedAt,
+                             long durationMillis) {
+
+        static StageEntry of(EmailStageTiming timing) {
+            return new StageEntry(timing.getStage(), timing.getDetail(), timing.getStartedAt(), timing.getEndedAt(),
+                timing.getDurationMillis());
+        }
+    }
+
+    public record Cursor(long afterDuration, long afterId) {}
+}
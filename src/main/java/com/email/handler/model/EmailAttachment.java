@@ -8,6 +8,8 @@ public class EmailAttachment {
     private long size;
     private boolean isAudioVideo;
     private String transcript;
+    // Media format recognised from the content: null if never inspected, empty if not media
+    private String sniffedFormat;
     
     public EmailAttachment() {}
     
@@ -39,4 +41,7 @@ public class EmailAttachment {
     
     public String getTranscript() { return transcript; }
     public void setTranscript(String transcript) { this.transcript = transcript; }
+    
+    public String getSniffedFormat() { return sniffedFormat; }
+    public void setSniffedFormat(String sniffedFormat) { this.sniffedFormat = sniffedFormat; }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.email.handler.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(
+    name = "processed_email_daily_counts",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"summary_date", "status"})
+)
+public class EmailDailyCount {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "summary_date", nullable = false)
+    private LocalDate day;
+    
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ProcessedEmail.ProcessingStatus status;
+    
+    @Column(name = "email_count", nullable = false)
+    private long count;
+    
+    public EmailDailyCount() {}
+    
+    public EmailDailyCount(LocalDate day, ProcessedEmail.ProcessingStatus status) {
+        this.day = day;
+        this.status = status;
+    }
+    
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+    
+    public ProcessedEmail.ProcessingStatus getStatus() { return status; }
+    public void setStatus(ProcessedEmail.ProcessingStatus status) { this.status = status; }
+    
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
@@ -1,7 +1,9 @@
 package com.email.handler.model;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EmailMessage {
     
@@ -13,6 +15,16 @@ public class EmailMessage {
     private String contentType;
     private Map<String, String> headers;
     private List<EmailAttachment> attachments;
+    private String folder;
+    private Long uidValidity;
+    private Long uid;
+    private String spoolPath;
+    private String forwardedMessageId;
+    private LocalDateTime fetchedAt;
+    // Position in the MIME tree (e.g. "0.1") of the body part that was cut at max-chars
+    private String truncatedBodyPart;
+    // Delivery sinks this email (or its transcript follow-up) already reached, with the id each delivered it under
+    private Map<String, String> deliveries = new ConcurrentHashMap<>();
     
     public EmailMessage() {}
     
@@ -40,4 +52,28 @@ public class EmailMessage {
     
     public List<EmailAttachment> getAttachments() { return attachments; }
     public void setAttachments(List<EmailAttachment> attachments) { this.attachments = attachments; }
-}
\ No newline at end of file
+    
+    public String getFolder() { return folder; }
+    public void setFolder(String folder) { this.folder = folder; }
+    
+    public Long getUidValidity() { return uidValidity; }
+    public void setUidValidity(Long uidValidity) { this.uidValidity = uidValidity; }
+    
+    public Long getUid() { return uid; }
+    public void setUid(Long uid) { this.uid = uid; }
+    
+    public String getSpoolPath() { return spoolPath; }
+    public void setSpoolPath(String spoolPath) { this.spoolPath = spoolPath; }
+    
+    public String getForwardedMessageId() { return forwardedMessageId; }
+    public void setForwardedMessageId(String forwardedMessageId) { this.forwardedMessageId = forwardedMessageId; }
+    
+    public LocalDateTime getFetchedAt() { return fetchedAt; }
+    public void setFetchedAt(LocalDateTime fetchedAt) { this.fetchedAt = fetchedAt; }
+    
+    public String getTruncatedBodyPart() { return truncatedBodyPart; }
+    public void setTruncatedBodyPart(String truncatedBodyPart) { this.truncatedBodyPart = truncatedBodyPart; }
+    
+    public Map<String, String> getDeliveries() { return deliveries; }
+    public void setDeliveries(Map<String, String> deliveries) { this.deliveries = new ConcurrentHashMap<>(deliveries); }
+}
@@ -0,0 +1,79 @@
+package com.email.handler.model;
+
+import jakarta.persistence.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the per-email timing ledger: when a message entered and left a
+ * stage. Each finished email also gets a "total" entry spanning fetch to final
+ * status, which is what the slowest-email query ranks.
+ */
+@Entity
+@Table(
+    name = "email_stage_timings",
+    indexes = {
+        @Index(name = "idx_email_stage_timings_stage_ended", columnList = "stage, ended_at"),
+        @Index(name = "idx_email_stage_timings_message", columnList = "message_id")
+    }
+)
+public class EmailStageTiming {
+    
+    // Sequence-allocated ids so the ledger can be written with batched inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_stage_timings_seq")
+    @SequenceGenerator(name = "email_stage_timings_seq", sequenceName = "email_stage_timings_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "message_id", nullable = false)
+    private String messageId;
+    
+    @Column(name = "stage", nullable = false, length = 32)
+    private String stage;
+    
+    // Attachment filename for conversions, final status for the total
+    @Column(name = "detail")
+    private String detail;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "ended_at", nullable = false)
+    private LocalDateTime endedAt;
+    
+    @Column(name = "duration_millis", nullable = false)
+    private long durationMillis;
+    
+    public EmailStageTiming() {}
+    
+    public EmailStageTiming(String messageId, String stage, String detail, LocalDateTime startedAt, LocalDateTime endedAt) {
+        this.messageId = messageId;
+        this.stage = stage;
+        this.detail = detail;
+        this.startedAt = startedAt;
+        this.endedAt = endedAt;
+        this.durationMillis = Duration.between(startedAt, endedAt).toMillis();
+    }
+    
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getMessageId() { return messageId; }
+    public void setMessageId(String messageId) { this.messageId = messageId; }
+    
+    public String getStage() { return stage; }
+    public void setStage(String stage) { this.stage = stage; }
+    
+    public String getDetail() { return detail; }
+    public void setDetail(String detail) { this.detail = detail; }
+    
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    
+    public LocalDateTime getEndedAt() { return endedAt; }
+    public void setEndedAt(LocalDateTime endedAt) { this.endedAt = endedAt; }
+    
+    public long getDurationMillis() { return durationMillis; }
+    public void setDurationMillis(long durationMillis) { this.durationMillis = durationMillis; }
+}
@@ -0,0 +1,75 @@
+package com.email.handler.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one partition of a parallel backlog drain: the UID range it covers
+ * and the last UID in it that was fetched and spooled.
+ */
+@Entity
+@Table(
+    name = "fetch_checkpoints",
+    indexes = @Index(name = "idx_fetch_checkpoints_folder", columnList = "folder, uid_validity")
+)
+public class FetchCheckpoint {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "folder", nullable = false)
+    private String folder;
+    
+    @Column(name = "uid_validity", nullable = false)
+    private Long uidValidity;
+    
+    @Column(name = "range_start", nullable = false)
+    private Long rangeStart;
+    
+    @Column(name = "range_end", nullable = false)
+    private Long rangeEnd;
+    
+    @Column(name = "last_uid", nullable = false)
+    private Long lastUid;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    public FetchCheckpoint() {}
+    
+    public FetchCheckpoint(String folder, Long uidValidity, Long rangeStart, Long rangeEnd) {
+        this.folder = folder;
+        this.uidValidity = uidValidity;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.lastUid = rangeStart - 1;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getFolder() { return folder; }
+    public void setFolder(String folder) { this.folder = folder; }
+    
+    public Long getUidValidity() { return uidValidity; }
+    public void setUidValidity(Long uidValidity) { this.uidValidity = uidValidity; }
+    
+    public Long getRangeStart() { return rangeStart; }
+    public void setRangeStart(Long rangeStart) { this.rangeStart = rangeStart; }
+    
+    public Long getRangeEnd() { return rangeEnd; }
+    public void setRangeEnd(Long rangeEnd) { this.rangeEnd = rangeEnd; }
+    
+    public Long getLastUid() { return lastUid; }
+    public void setLastUid(Long lastUid) { this.lastUid = lastUid; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public boolean isComplete() {
+        return lastUid >= rangeEnd;
+    }
+}
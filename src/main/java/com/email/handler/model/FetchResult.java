@@ -0,0 +1,22 @@
+package com.email.handler.model;
+
+import java.util.List;
+
+/**
+ * One batch of newly fetched emails, plus how many new messages were left on
+ * the server beyond it.
+ */
+public class FetchResult {
+    
+    private final List<EmailMessage> emails;
+    private final int backlog;
+    
+    public FetchResult(List<EmailMessage> emails, int backlog) {
+        this.emails = emails;
+        this.backlog = backlog;
+    }
+    
+    public List<EmailMessage> getEmails() { return emails; }
+    
+    public int getBacklog() { return backlog; }
+}
@@ -0,0 +1,54 @@
+package com.email.handler.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the backfill of one local archive: the position after which reading
+ * resumes. Everything up to it has reached a final status in the pipeline.
+ */
+@Entity
+@Table(name = "ingestion_checkpoints")
+public class IngestionCheckpoint {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "source", nullable = false, unique = true, length = 1024)
+    private String source;
+    
+    // Byte offset into an mbox file, or the last Maildir file name; null before the first message
+    @Column(name = "position")
+    private String position;
+    
+    @Column(name = "message_count", nullable = false)
+    private Long messageCount;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    public IngestionCheckpoint() {}
+    
+    public IngestionCheckpoint(String source) {
+        this.source = source;
+        this.messageCount = 0L;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+    
+    public String getPosition() { return position; }
+    public void setPosition(String position) { this.position = position; }
+    
+    public Long getMessageCount() { return messageCount; }
+    public void setMessageCount(Long messageCount) { this.messageCount = messageCount; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
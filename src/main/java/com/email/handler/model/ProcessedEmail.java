@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "processed_emails")
+@Table(
+    name = "processed_emails",
+    indexes = @Index(name = "idx_processed_emails_processed_at", columnList = "processed_at")
+)
 public class ProcessedEmail {
     
     @Id
@@ -27,6 +30,53 @@ public class ProcessedEmail {
     @Column(name = "retry_count")
     private Integer retryCount = 0;
     
+    // Outbox state: the last stage that completed successfully and where to
+    // find the original message again without re-downloading it
+    @Column(name = "completed_stage")
+    @Enumerated(EnumType.STRING)
+    private ProcessingStatus completedStage;
+    
+    @Column(name = "folder")
+    private String folder;
+    
+    @Column(name = "uid_validity")
+    private Long uidValidity;
+    
+    @Column(name = "uid")
+    private Long uid;
+    
+    @Column(name = "spool_path", length = 1024)
+    private String spoolPath;
+    
+    @Lob
+    @Column(name = "transcripts")
+    private String transcripts;
+    
+    @Column(name = "next_retry_at")
+    private LocalDateTime nextRetryAt;
+    
+    // Forward-first delivery: the Message-ID the original went out with, and
+    // whether the transcript follow-up threaded under it has been sent
+    @Column(name = "forwarded_message_id", length = 998)
+    private String forwardedMessageId;
+    
+    @Column(name = "follow_up_state")
+    @Enumerated(EnumType.STRING)
+    private FollowUpState followUpState;
+    
+    // Delivery sinks already reached, as JSON of sink to delivered id, so a retry
+    // after a partial failure only delivers to the sinks that failed
+    @Column(name = "deliveries", length = 4000)
+    private String deliveries;
+    
+    // When the source message was flagged or moved out of the polled folder
+    @Column(name = "post_processed_at")
+    private LocalDateTime postProcessedAt;
+    
+    // Why post-processing left the source message untouched, if it did
+    @Column(name = "post_process_skipped")
+    private String postProcessSkipped;
+    
     public ProcessedEmail() {}
     
     public ProcessedEmail(String messageId, ProcessingStatus status) {
@@ -54,6 +104,46 @@ public class ProcessedEmail {
     public Integer getRetryCount() { return retryCount; }
     public void setRetryCount(Integer retryCount) { this.retryCount = retryCount; }
     
+    public ProcessingStatus getCompletedStage() { return completedStage; }
+    public void setCompletedStage(ProcessingStatus completedStage) { this.completedStage = completedStage; }
+    
+    public String getFolder() { return folder; }
+    public void setFolder(String folder) { this.folder = folder; }
+    
+    public Long getUidValidity() { return uidValidity; }
+    public void setUidValidity(Long uidValidity) { this.uidValidity = uidValidity; }
+    
+    public Long getUid() { return uid; }
+    public void setUid(Long uid) { this.uid = uid; }
+    
+    public String getSpoolPath() { return spoolPath; }
+    public void setSpoolPath(String spoolPath) { this.spoolPath = spoolPath; }
+    
+    public String getTranscripts() { return transcripts; }
+    public void setTranscripts(String transcripts) { this.transcripts = transcripts; }
+    
+    public LocalDateTime getNextRetryAt() { return nextRetryAt; }
+    public void setNextRetryAt(LocalDateTime nextRetryAt) { this.nextRetryAt = nextRetryAt; }
+    
+    public String getForwardedMessageId() { return forwardedMessageId; }
+    public void setForwardedMessageId(String forwardedMessageId) { this.forwardedMessageId = forwardedMessageId; }
+    
+    public FollowUpState getFollowUpState() { return followUpState; }
+    public void setFollowUpState(FollowUpState followUpState) { this.followUpState = followUpState; }
+    
+    public String getDeliveries() { return deliveries; }
+    public void setDeliveries(String deliveries) { this.deliveries = deliveries; }
+    
+    public LocalDateTime getPostProcessedAt() { return postProcessedAt; }
+    public void setPostProcessedAt(LocalDateTime postProcessedAt) { this.postProcessedAt = postProcessedAt; }
+    
+    public String getPostProcessSkipped() { return postProcessSkipped; }
+    public void setPostProcessSkipped(String postProcessSkipped) { this.postProcessSkipped = postProcessSkipped; }
+    
+    public boolean hasCompleted(ProcessingStatus stage) {
+        return completedStage != null && completedStage.ordinal() >= stage.ordinal();
+    }
+    
     public enum ProcessingStatus {
         RECEIVED,
         PROCESSING,
@@ -61,4 +151,10 @@ public class ProcessedEmail {
         FORWARDED,
         FAILED
     }
+    
+    public enum FollowUpState {
+        PENDING,
+        SENDING,
+        SENT
+    }
 }
\ No newline at end of file
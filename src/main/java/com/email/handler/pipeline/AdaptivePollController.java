@@ -0,0 +1,148 @@
+package com.email.handler.pipeline;
+
+import com.email.handler.config.EmailHandlerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides how many messages the next IMAP poll fetches and when it runs.
+ * While the server reports a backlog and the pipeline has headroom the batch
+ * doubles and polls run back to back; when the pipeline fills up the batch is
+ * halved and the interval doubled, and an idle mailbox is polled less and less
+ * often. With adaptive fetching disabled it keeps the configured fixed values.
+ */
+@Component
+public class AdaptivePollController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePollController.class);
+
+    public enum Decision {
+        // Backlog on the server and room in the pipeline: bigger batches, shortest interval
+        GROW,
+        // New mail but no backlog: keep the batch, poll at the configured interval
+        STEADY,
+        // Pipeline above the high watermark, or the poll failed: smaller batches, longer interval
+        BACKOFF,
+        // Nothing new: shrink the batch and stretch the interval
+        IDLE
+    }
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    private volatile int batchSize;
+    private volatile long interval;
+    private volatile long nextPollAt;
+    private volatile int lastBacklog;
+    private volatile Decision lastDecision = Decision.STEADY;
+    private final Map<Decision, LongAdder> decisionCounts = new EnumMap<>(Decision.class);
+
+    @PostConstruct
+    public void initialize() {
+        batchSize = getMinBatchSize();
+        interval = properties.getImap().getFetchInterval();
+        for (Decision decision : Decision.values()) {
+            decisionCounts.put(decision, new LongAdder());
+        }
+    }
+
+    public boolean isDue() {
+        return System.currentTimeMillis() >= nextPollAt;
+    }
+
+    /**
+     * Records the outcome of a poll. Pressure is the fill ratio (0..1) of the
+     * fullest pipeline resource after the fetched emails were dispatched.
+     */
+    public void onPoll(int fetched, int backlog, double pressure) {
+        lastBacklog = backlog;
+        if (pressure >= getAdaptiveFetch().getHighWatermark()) {
+            decide(Decision.BACKOFF);
+        } else if (backlog > 0) {
+            decide(Decision.GROW);
+        } else if (fetched > 0) {
+            decide(Decision.STEADY);
+        } else {
+            decide(Decision.IDLE);
+        }
+    }
+
+    /**
+     * The pipeline had no room at all, so the poll was skipped.
+     */
+    public void onSaturated() {
+        decide(Decision.BACKOFF);
+    }
+
+    public void onError() {
+        decide(Decision.BACKOFF);
+    }
+
+    private void decide(Decision decision) {
+        EmailHandlerProperties.AdaptiveFetch adaptive = getAdaptiveFetch();
+        int previousBatch = batchSize;
+        long previousInterval = interval;
+
+        if (adaptive.isEnabled()) {
+            int minBatch = getMinBatchSize();
+            long baseInterval = properties.getImap().getFetchInterval();
+            switch (decision) {
+                case GROW -> {
+                    batchSize = Math.min(adaptive.getMaxBatchSize(), Math.max(minBatch, batchSize * 2));
+                    interval = adaptive.getMinInterval();
+                }
+                case STEADY -> interval = baseInterval;
+                case BACKOFF -> {
+                    batchSize = Math.max(minBatch, batchSize / 2);
+                    interval = Math.min(adaptive.getMaxInterval(), Math.max(baseInterval, interval * 2));
+                }
+                case IDLE -> {
+                    batchSize = Math.max(minBatch, batchSize / 2);
+                    interval = Math.min(adaptive.getMaxInterval(), Math.max(baseInterval, interval + interval / 2));
+                }
+            }
+        }
+
+        lastDecision = decision;
+        decisionCounts.get(decision).increment();
+        nextPollAt = System.currentTimeMillis() + interval;
+
+        if (batchSize != previousBatch || interval != previousInterval) {
+            logger.info("Adaptive fetch {}: batch size {} -> {}, interval {} ms -> {} ms (backlog {})",
+                decision, previousBatch, batchSize, previousInterval, interval, lastBacklog);
+        }
+    }
+
+    private int getMinBatchSize() {
+        return Math.max(1, properties.getImap().getMaxMessagesPerFetch());
+    }
+
+    private EmailHandlerProperties.AdaptiveFetch getAdaptiveFetch() {
+        return properties.getImap().getAdaptiveFetch();
+    }
+
+    public int getBatchSize() { return batchSize; }
+
+    public long getInterval() { return interval; }
+
+    public int getLastBacklog() { return lastBacklog; }
+
+    public Decision getLastDecision() { return lastDecision; }
+
+    public long getDecisionCount(Decision decision) { return decisionCounts.get(decision).sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("batch=%d, interval=%dms, backlog=%d, last=%s, decisions[grow=%d, steady=%d, backoff=%d, idle=%d]",
+            batchSize, interval, lastBacklog, lastDecision,
+            getDecisionCount(Decision.GROW), getDecisionCount(Decision.STEADY),
+            getDecisionCount(Decision.BACKOFF), getDecisionCount(Decision.IDLE));
+    }
+}
@@ -0,0 +1,43 @@
+package com.email.handler.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Virtual threads that move work onto a stage for threads that must never block on a
+ * full stage queue: sink sender threads and status workers. Stopped after the stages
+ * (statusStage depends on it), so a hand-off started during shutdown either reaches
+ * a stage or, once the stages reject work, runs in place.
+ * <p>
+ * Deliberately not an {@link java.util.concurrent.Executor} bean, which would replace
+ * Spring Boot's application task executor; pass {@code deliveryHandoff::execute}.
+ */
+@Component
+public class DeliveryHandoff {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryHandoff.class);
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("delivery-handoff-", 1).factory());
+
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            // Hand-offs still waiting for room in a stopped stage; interrupting them runs their work in place
+            logger.warn("Delivery hand-offs did not finish within {} s, interrupting them", STOP_TIMEOUT_SECONDS);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.email.handler.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The emails handed to the pipeline by one poll (or one retry batch), and the
+ * future that completes once every one of them has reached a final status.
+ */
+public class DispatchCycle {
+
+    private final long id;
+    private final String source;
+    private final long startTime = System.currentTimeMillis();
+    private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private int deferred;
+    private CompletableFuture<Void> completion;
+
+    DispatchCycle(long id, String source) {
+        this.id = id;
+        this.source = source;
+    }
+
+    void add(CompletableFuture<Void> future) {
+        futures.add(future.whenComplete((result, error) -> {
+            if (error == null) {
+                succeeded.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+        }));
+    }
+
+    void defer(int count) {
+        deferred += count;
+    }
+
+    CompletableFuture<Void> seal() {
+        // Individual failures are already counted; the cycle itself always completes normally
+        completion = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .handle((result, error) -> null);
+        return completion;
+    }
+
+    public long getId() { return id; }
+
+    public String getSource() { return source; }
+
+    public int getAdmitted() { return futures.size(); }
+
+    public int getDeferred() { return deferred; }
+
+    public int getSucceeded() { return succeeded.get(); }
+
+    public int getFailed() { return failed.get(); }
+
+    public int getPending() { return getAdmitted() - getSucceeded() - getFailed(); }
+
+    public long getElapsedMillis() { return System.currentTimeMillis() - startTime; }
+
+    public CompletableFuture<Void> getCompletion() { return completion; }
+
+    public boolean isDone() { return completion != null && completion.isDone(); }
+
+    @Override
+    public String toString() {
+        return String.format("%s cycle #%d[admitted=%d, succeeded=%d, failed=%d, pending=%d, deferred=%d, elapsed=%dms]",
+            source, id, getAdmitted(), getSucceeded(), getFailed(), getPending(), deferred, getElapsedMillis());
+    }
+}
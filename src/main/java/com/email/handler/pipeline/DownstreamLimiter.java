@@ -0,0 +1,78 @@
+package com.email.handler.pipeline;
+
+import com.email.handler.config.EmailHandlerProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps concurrent calls per backend independently of how many stage workers
+ * exist. With platform threads the stage sizes already bound this; with
+ * virtual threads the stages can be far wider than any backend tolerates.
+ */
+@Component
+public class DownstreamLimiter {
+
+    public enum Downstream {
+        IMAP,
+        SMTP,
+        CONVERSION,
+        DATABASE
+    }
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    private final Map<Downstream, Semaphore> permits = new EnumMap<>(Downstream.class);
+    private final Map<Downstream, Integer> limits = new EnumMap<>(Downstream.class);
+
+    @PostConstruct
+    public void initialize() {
+        EmailHandlerProperties.DownstreamLimits limits = properties.getProcessing().getDownstreamLimits();
+        // Fair semaphores so a burst of new work cannot starve callers that have waited longest
+        permits.put(Downstream.IMAP, new Semaphore(limits.getImap(), true));
+        permits.put(Downstream.SMTP, new Semaphore(limits.getSmtp(), true));
+        permits.put(Downstream.CONVERSION, new Semaphore(limits.getConversion(), true));
+        permits.put(Downstream.DATABASE, new Semaphore(limits.getDatabase(), true));
+        permits.forEach((downstream, semaphore) -> this.limits.put(downstream, semaphore.availablePermits()));
+    }
+
+    public <T> T call(Downstream downstream, Callable<T> callable) throws Exception {
+        Semaphore semaphore = permits.get(downstream);
+        semaphore.acquire();
+        try {
+            return callable.call();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public void run(Downstream downstream, Task task) throws Exception {
+        call(downstream, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public int getAvailablePermits(Downstream downstream) {
+        return permits.get(downstream).availablePermits();
+    }
+
+    public int getLimit(Downstream downstream) {
+        return limits.get(downstream);
+    }
+
+    public int getInUse(Downstream downstream) {
+        return getLimit(downstream) - getAvailablePermits(downstream);
+    }
+}
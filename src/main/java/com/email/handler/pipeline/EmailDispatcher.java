@@ -0,0 +1,187 @@
+package com.email.handler.pipeline;
+
+import com.email.handler.config.EmailHandlerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Admits work into the pipeline under a global in-flight limit. An email holds
+ * its permit from admission until it reaches a final status, so the limit covers
+ * every stage, not just the entry queue. What happens when the limit is reached
+ * is decided by {@link EmailHandlerProperties.RejectionPolicy}; deferred emails
+ * are never marked, so the poller or retry job simply picks them up again.
+ * <p>
+ * MEDIA emails may only use the in-flight capacity left after the EXPRESS
+ * reservation, and never more than the conversion stage can hold, so emails
+ * waiting on conversions can neither crowd out text-only mail nor block the
+ * dedup workers on a full conversion queue.
+ */
+@Component
+public class EmailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    @Autowired
+    @Qualifier("conversionStage")
+    private PipelineStage conversionStage;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    private Semaphore inFlight;
+    private Semaphore mediaInFlight;
+    private int mediaLimit;
+    private final AtomicLong cycleSequence = new AtomicLong();
+    private final Set<DispatchCycle> activeCycles = ConcurrentHashMap.newKeySet();
+    private final Map<Lane, LatencyHistogram> laneLatency = new EnumMap<>(Lane.class);
+
+    @PostConstruct
+    public void initialize() {
+        int maxInFlight = properties.getProcessing().getMaxInFlight();
+        int expressReserved = Math.min(properties.getProcessing().getLanes().getExpressReserved(), maxInFlight - 1);
+        mediaLimit = Math.min(maxInFlight - expressReserved,
+            conversionStage.getConcurrency() + conversionStage.getQueueCapacity());
+
+        inFlight = new Semaphore(maxInFlight);
+        mediaInFlight = new Semaphore(mediaLimit);
+        for (Lane lane : Lane.values()) {
+            laneLatency.put(lane, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Admits the items lane by lane, EXPRESS first, so text-only mail of a cycle
+     * is never held back waiting for media capacity.
+     */
+    public <T> DispatchCycle dispatch(String source, List<T> items, Function<T, Lane> laneOf,
+                                      Function<T, CompletableFuture<Void>> pipeline) {
+        DispatchCycle cycle = new DispatchCycle(cycleSequence.incrementAndGet(), source);
+
+        Map<Lane, List<T>> byLane = new EnumMap<>(Lane.class);
+        for (T item : items) {
+            byLane.computeIfAbsent(laneOf.apply(item), lane -> new ArrayList<>()).add(item);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getProcessing().getDispatchTimeout());
+        for (Map.Entry<Lane, List<T>> entry : byLane.entrySet()) {
+            Lane lane = entry.getKey();
+            List<T> laneItems = entry.getValue();
+
+            for (int i = 0; i < laneItems.size(); i++) {
+                if (!acquirePermit(lane, deadline)) {
+                    cycle.defer(laneItems.size() - i);
+                    logger.warn("In-flight limit reached for {} lane, deferring {} of {} emails from {} cycle #{}",
+                        lane, laneItems.size() - i, laneItems.size(), source, cycle.getId());
+                    break;
+                }
+
+                long admittedAt = System.currentTimeMillis();
+                CompletableFuture<Void> future;
+                try {
+                    future = pipeline.apply(laneItems.get(i));
+                } catch (RuntimeException e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                future.whenComplete((result, error) -> {
+                    releasePermit(lane);
+                    long latency = System.currentTimeMillis() - admittedAt;
+                    laneLatency.get(lane).record(latency);
+                    pipelineMetrics.recordLaneLatency(lane, latency);
+                });
+                cycle.add(future);
+            }
+        }
+
+        activeCycles.add(cycle);
+        cycle.seal().whenComplete((result, error) -> {
+            activeCycles.remove(cycle);
+            if (cycle.getFailed() > 0 || cycle.getDeferred() > 0) {
+                logger.warn("Completed {}", cycle);
+            } else {
+                logger.info("Completed {}", cycle);
+            }
+        });
+        return cycle;
+    }
+
+    private boolean acquirePermit(Lane lane, long deadline) {
+        if (lane == Lane.MEDIA) {
+            if (!tryAcquire(mediaInFlight, deadline)) {
+                return false;
+            }
+            if (!tryAcquire(inFlight, deadline)) {
+                mediaInFlight.release();
+                return false;
+            }
+            return true;
+        }
+        return tryAcquire(inFlight, deadline);
+    }
+
+    private boolean tryAcquire(Semaphore semaphore, long deadline) {
+        if (properties.getProcessing().getRejectionPolicy() == EmailHandlerProperties.RejectionPolicy.DEFER) {
+            return semaphore.tryAcquire();
+        }
+        try {
+            return semaphore.tryAcquire(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void releasePermit(Lane lane) {
+        inFlight.release();
+        if (lane == Lane.MEDIA) {
+            mediaInFlight.release();
+        }
+    }
+
+    /**
+     * How many more emails can be admitted right now without waiting.
+     */
+    public int getAvailableCapacity() {
+        return inFlight.availablePermits();
+    }
+
+    public int getInFlightCount() {
+        return properties.getProcessing().getMaxInFlight() - inFlight.availablePermits();
+    }
+
+    public int getInFlightCount(Lane lane) {
+        if (lane == Lane.MEDIA) {
+            return mediaLimit - mediaInFlight.availablePermits();
+        }
+        return getInFlightCount() - getInFlightCount(Lane.MEDIA);
+    }
+
+    /**
+     * Admission-to-final-status latency of the given lane.
+     */
+    public LatencyHistogram getLatency(Lane lane) {
+        return laneLatency.get(lane);
+    }
+
+    public List<DispatchCycle> getActiveCycles() {
+        return new ArrayList<>(activeCycles);
+    }
+}
@@ -0,0 +1,166 @@
+package com.email.handler.pipeline;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder events of the hot path. They are disabled unless a recording
+ * turns them on, normally through the {@code jfr/email-handler.jfc} profile, so an
+ * unprofiled run only pays for an {@code isEnabled()} check per operation.
+ * <p>
+ * Event durations are the operation's latency; the fields tie each event to an
+ * email so allocation, GC and lock samples of the same thread and time can be read
+ * against it.
+ */
+public final class FlightEvents {
+
+    private FlightEvents() {}
+
+    @Name("email.ImapFetch")
+    @Label("IMAP Fetch")
+    @Description("Download of one message into the spool")
+    @Category({"Email Handler", "IMAP"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class ImapFetch extends Event {
+        @Label("Message-ID")
+        public String messageId;
+
+        @Label("Folder")
+        public String folder;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+    }
+
+    @Name("email.MessageParse")
+    @Label("Message Parse")
+    @Description("parseMessage of one spooled message")
+    @Category({"Email Handler", "IMAP"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class MessageParse extends Event {
+        @Label("Message-ID")
+        public String messageId;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+
+        @Label("Attachments")
+        public int attachments;
+    }
+
+    @Name("email.PartParse")
+    @Label("Part Parse")
+    @Description("parseMessageContent of one leaf MIME part")
+    @Category({"Email Handler", "IMAP"})
+    @Enabled(false)
+    @StackTrace(false)
+    @Threshold("1 ms")
+    public static class PartParse extends Event {
+        @Label("Content Type")
+        public String contentType;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+    }
+
+    @Name("email.AttachmentCopy")
+    @Label("Attachment Copy")
+    @Description("Copy of an attachment's decoded bytes out of the MIME part")
+    @Category({"Email Handler", "IMAP"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class AttachmentCopy extends Event {
+        @Label("Filename")
+        public String filename;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("email.ConversionRequest")
+    @Label("Conversion Request")
+    @Description("Call to the audio/video conversion API for one attachment")
+    @Category({"Email Handler", "Conversion"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class ConversionRequest extends Event {
+        @Label("Filename")
+        public String filename;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("HTTP Status")
+        @Description("Status code of the response, 0 when no response was received")
+        public int status;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("email.MimeBuild")
+    @Label("MIME Build")
+    @Description("Assembly of the forwarded MIME message in forwardEmail()")
+    @Category({"Email Handler", "SMTP"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class MimeBuild extends Event {
+        @Label("Message-ID")
+        public String messageId;
+
+        @Label("Attachments")
+        public int attachments;
+
+        @Label("Transcripts To Follow")
+        public boolean transcriptsToFollow;
+    }
+
+    @Name("email.SmtpSend")
+    @Label("SMTP Send")
+    @Description("Transport.send of one outgoing message")
+    @Category({"Email Handler", "SMTP"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class SmtpSend extends Event {
+        @Label("Message-ID")
+        public String messageId;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("email.DedupLookup")
+    @Label("Dedup Lookup")
+    @Description("Duplicate check of one message")
+    @Category({"Email Handler", "Dedup"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class DedupLookup extends Event {
+        @Label("Message-ID")
+        public String messageId;
+
+        @Label("Source")
+        @Description("Where the answer came from: cache, database or disabled")
+        public String source;
+
+        @Label("Cache Hit")
+        public boolean cacheHit;
+
+        @Label("Duplicate")
+        public boolean duplicate;
+    }
+}
@@ -0,0 +1,82 @@
+package com.email.handler.pipeline;
+
+import com.email.handler.config.EmailHandlerProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Continuous in-process Flight Recorder recording for hosts where the JVM flags
+ * can't be changed. Combines a JDK profile (allocation, GC, locks) with the
+ * bundled {@code jfr/email-handler.jfc}, keeps a bounded ring on disk and writes
+ * it to the destination on shutdown; {@code jcmd <pid> JFR.dump} works meanwhile.
+ */
+@Component
+public class FlightRecording {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecording.class);
+    private static final String PROFILE = "/jfr/email-handler.jfc";
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    private Recording recording;
+
+    @PostConstruct
+    public void start() {
+        EmailHandlerProperties.FlightRecorder flightRecorder = properties.getFlightRecorder();
+        if (!flightRecorder.isEnabled()) {
+            return;
+        }
+
+        try {
+            Map<String, String> settings = new HashMap<>(
+                Configuration.getConfiguration(flightRecorder.getBaseSettings()).getSettings());
+            try (Reader reader = new InputStreamReader(
+                    FlightRecording.class.getResourceAsStream(PROFILE), StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+
+            Path destination = Path.of(flightRecorder.getDestination());
+            if (destination.getParent() != null) {
+                Files.createDirectories(destination.getParent());
+            }
+
+            recording = new Recording(settings);
+            recording.setName("email-handler");
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMillis(flightRecorder.getMaxAge()));
+            recording.setMaxSize(flightRecorder.getMaxSize());
+            recording.setDestination(destination);
+            recording.start();
+
+            logger.info("Flight recording started with {} + email-handler settings, written to {} on shutdown",
+                flightRecorder.getBaseSettings(), destination);
+        } catch (Exception e) {
+            // Profiling is optional; never keep the application from starting
+            logger.error("Unable to start flight recording: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.stop();
+            recording.close();
+        }
+    }
+}
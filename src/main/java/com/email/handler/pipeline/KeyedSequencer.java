@@ -0,0 +1,81 @@
+package com.email.handler.pipeline;
+
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Orders work that shares a key while leaving different keys fully parallel.
+ * Each key keeps only the ticket of the last entrant; a new ticket runs its
+ * gated step once the ticket before it is released. Nothing ever waits on a
+ * thread for a predecessor: the gated step is handed off when the predecessor
+ * is released, so a slow key never holds up workers that other keys need.
+ */
+@Component
+public class KeyedSequencer {
+
+    private final ConcurrentHashMap<String, Ticket> tails = new ConcurrentHashMap<>();
+    // Hand-offs may block on a full stage queue, which must never happen on a stage worker
+    private final ExecutorService handoff = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("sequencer-handoff-", 1).factory());
+    private final LongAdder deferredCount = new LongAdder();
+
+    /**
+     * Takes the next ticket for the key. Tickets must be taken in the order the
+     * work should run in.
+     */
+    public Ticket enter(String key) {
+        Ticket ticket = new Ticket(key);
+        Ticket previous = tails.put(key, ticket);
+        ticket.predecessor = previous == null ? CompletableFuture.completedFuture(null) : previous.released;
+        return ticket;
+    }
+
+    public int getActiveKeys() { return tails.size(); }
+
+    public long getDeferredCount() { return deferredCount.sum(); }
+
+    @PreDestroy
+    public void shutdown() {
+        handoff.shutdown();
+    }
+
+    public class Ticket {
+        private final String key;
+        private final CompletableFuture<Void> released = new CompletableFuture<>();
+        private CompletableFuture<Void> predecessor;
+
+        private Ticket(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Runs the step right away if the predecessor is already released,
+         * otherwise as soon as it is.
+         */
+        public void runInTurn(Runnable step) {
+            if (predecessor.isDone()) {
+                step.run();
+                return;
+            }
+            deferredCount.increment();
+            predecessor.whenComplete((result, error) -> handoff.execute(step));
+        }
+
+        /**
+         * Lets the next ticket of the same key proceed. Safe to call more than once.
+         */
+        public void release() {
+            if (released.complete(null)) {
+                tails.remove(key, this);
+            }
+        }
+
+        public String getKey() { return key; }
+    }
+}
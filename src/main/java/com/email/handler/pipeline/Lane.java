@@ -0,0 +1,10 @@
+package com.email.handler.pipeline;
+
+/**
+ * Scheduling class of an email. Text-only mail travels in the EXPRESS lane so
+ * it never queues behind emails waiting for audio/video conversion.
+ */
+public enum Lane {
+    EXPRESS,
+    MEDIA
+}
@@ -0,0 +1,125 @@
+package com.email.handler.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue with one FIFO per {@link Lane}. Takers serve up to
+ * {@code expressWeight} EXPRESS tasks for every MEDIA task, and a MEDIA task
+ * that has waited longer than the aging limit is served next regardless, so
+ * the media lane is deprioritised but never starved.
+ */
+class LaneQueue<T extends LaneQueue.Entry> {
+
+    interface Entry {
+        Lane getLane();
+        long getEnqueuedAt();
+    }
+
+    private final int capacity;
+    private final int expressWeight;
+    private final long agingNanos;
+    private final Map<Lane, ArrayDeque<T>> lanes = new EnumMap<>(Lane.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private int count;
+    private int expressStreak;
+
+    LaneQueue(int capacity, int expressWeight, long agingMillis) {
+        this.capacity = capacity;
+        this.expressWeight = Math.max(expressWeight, 1);
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(agingMillis);
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new ArrayDeque<>());
+        }
+    }
+
+    void put(T entry) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == capacity) {
+                notFull.await();
+            }
+            lanes.get(entry.getLane()).addLast(entry);
+            count++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            T entry = lanes.get(select()).pollFirst();
+            count--;
+            notFull.signal();
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lane select() {
+        T express = lanes.get(Lane.EXPRESS).peekFirst();
+        T media = lanes.get(Lane.MEDIA).peekFirst();
+        if (media == null) {
+            return Lane.EXPRESS;
+        }
+        if (express == null) {
+            expressStreak = 0;
+            return Lane.MEDIA;
+        }
+        boolean mediaAged = agingNanos > 0 && System.nanoTime() - media.getEnqueuedAt() >= agingNanos;
+        if (mediaAged || expressStreak >= expressWeight) {
+            expressStreak = 0;
+            return Lane.MEDIA;
+        }
+        expressStreak++;
+        return Lane.EXPRESS;
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size(Lane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+}
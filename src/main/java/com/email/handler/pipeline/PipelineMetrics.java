@@ -0,0 +1,96 @@
+package com.email.handler.pipeline;
+
+import com.email.handler.model.ProcessedEmail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters of the email pipeline. Every timed step is recorded in the
+ * single {@value #STAGE_TIMER} timer with a {@code stage} tag, so one query breaks
+ * the processing time of an email down by step.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String STAGE_TIMER = "email.stage.duration";
+    public static final String LANE_TIMER = "email.lane.latency";
+    public static final String STATUS_COUNTER = "email.status.transitions";
+
+    public static final String IMAP_CONNECT = "imap.connect";
+    public static final String IMAP_FETCH = "imap.fetch";
+    public static final String IMAP_PARSE = "imap.parse";
+    public static final String DEDUP_LOOKUP = "dedup.lookup";
+    public static final String CONVERSION = "conversion";
+    public static final String MIME_BUILD = "mime.build";
+    public static final String SMTP_SEND = "smtp.send";
+    public static final String MAILDIR_WRITE = "maildir.write";
+    public static final String WEBHOOK_POST = "webhook.post";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stop(Timer.Sample sample, String stage, boolean success, String... extraTags) {
+        sample.stop(Timer.builder(STAGE_TIMER)
+            .tags(Tags.of("stage", stage, "outcome", success ? "success" : "error").and(extraTags))
+            .register(registry));
+    }
+
+    public <T> T record(String stage, Callable<T> callable) throws Exception {
+        Timer.Sample sample = start();
+        boolean success = false;
+        try {
+            T result = callable.call();
+            success = true;
+            return result;
+        } finally {
+            stop(sample, stage, success);
+        }
+    }
+
+    public void record(String stage, DownstreamLimiter.Task task) throws Exception {
+        record(stage, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public void recordLaneLatency(Lane lane, long millis) {
+        Timer.builder(LANE_TIMER)
+            .tag("lane", lane.name())
+            .register(registry)
+            .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordTransition(ProcessedEmail.ProcessingStatus from, ProcessedEmail.ProcessingStatus to) {
+        Counter.builder(STATUS_COUNTER)
+            .tag("from", from != null ? from.name() : "NONE")
+            .tag("to", to.name())
+            .register(registry)
+            .increment();
+    }
+
+    /**
+     * Coarse size class for tagging, so per-size timings stay low-cardinality.
+     */
+    public static String sizeBucket(long bytes) {
+        if (bytes < 1024 * 1024) {
+            return "<1MB";
+        } else if (bytes < 10L * 1024 * 1024) {
+            return "1-10MB";
+        } else if (bytes < 100L * 1024 * 1024) {
+            return "10-100MB";
+        }
+        return ">100MB";
+    }
+}
@@ -0,0 +1,203 @@
+package com.email.handler.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One stage of the email pipeline: a bounded queue drained by a fixed number of
+ * worker threads. Submitting to a full stage blocks the caller, which is how
+ * backpressure travels upstream from a slow stage to the stages feeding it.
+ * The queue is split into lanes (see {@link LaneQueue}) so EXPRESS work is
+ * served ahead of MEDIA work.
+ */
+public class PipelineStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+    private static final int DEFAULT_EXPRESS_WEIGHT = 4;
+
+    private final String name;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final LaneQueue<StageTask> queue;
+    private final ThreadFactory threadFactory;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder totalServiceNanos = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private volatile boolean running;
+
+    public PipelineStage(String name, int concurrency, int queueCapacity) {
+        this(name, concurrency, queueCapacity, Thread.ofPlatform().name(name + "-", 1).daemon(true).factory());
+    }
+
+    public PipelineStage(String name, int concurrency, int queueCapacity, ThreadFactory threadFactory) {
+        this(name, concurrency, queueCapacity, threadFactory, DEFAULT_EXPRESS_WEIGHT, 0);
+    }
+
+    public PipelineStage(String name, int concurrency, int queueCapacity, ThreadFactory threadFactory,
+                         int expressWeight, long mediaAgingMillis) {
+        this.name = name;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.queue = new LaneQueue<>(queueCapacity, expressWeight, mediaAgingMillis);
+        this.threadFactory = threadFactory;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = threadFactory.newThread(this::runWorker);
+            worker.start();
+            workers.add(worker);
+        }
+        logger.info("Started pipeline stage '{}' with {} workers and queue capacity {}", name, concurrency, queueCapacity);
+    }
+
+    /**
+     * Stops accepting work and waits for queued tasks to drain.
+     */
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(60));
+        }
+        workers.clear();
+        if (!queue.isEmpty()) {
+            logger.warn("Pipeline stage '{}' stopped with {} queued tasks", name, queue.size());
+        }
+    }
+
+    public void execute(Runnable task) {
+        execute(Lane.EXPRESS, task);
+    }
+
+    /**
+     * Enqueues a task in the given lane, blocking while the stage queue is full.
+     */
+    public void execute(Lane lane, Runnable task) {
+        if (!running) {
+            throw new RejectedExecutionException("Pipeline stage '" + name + "' is not running");
+        }
+        try {
+            queue.put(new StageTask(lane, task));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for capacity in stage '" + name + "'", e);
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return submit(Lane.EXPRESS, task);
+    }
+
+    public <T> CompletableFuture<T> submit(Lane lane, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        execute(lane, () -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private void runWorker() {
+        while (running || !queue.isEmpty()) {
+            StageTask task;
+            try {
+                task = queue.poll(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (task == null) {
+                continue;
+            }
+
+            long startTime = System.nanoTime();
+            totalWaitNanos.add(startTime - task.enqueuedAt);
+            activeCount.incrementAndGet();
+            try {
+                task.runnable.run();
+            } catch (Throwable t) {
+                failedCount.increment();
+                logger.error("Unhandled error in pipeline stage '{}': {}", name, t.getMessage(), t);
+            } finally {
+                activeCount.decrementAndGet();
+                totalServiceNanos.add(System.nanoTime() - startTime);
+                completedCount.increment();
+            }
+        }
+    }
+
+    public String getName() { return name; }
+
+    public int getConcurrency() { return concurrency; }
+
+    public int getQueueCapacity() { return queueCapacity; }
+
+    public int getQueueDepth() { return queue.size(); }
+
+    public int getQueueDepth(Lane lane) { return queue.size(lane); }
+
+    public int getRemainingCapacity() { return queue.remainingCapacity(); }
+
+    public int getActiveCount() { return activeCount.get(); }
+
+    public long getCompletedCount() { return completedCount.sum(); }
+
+    public long getFailedCount() { return failedCount.sum(); }
+
+    public double getAverageServiceTimeMillis() {
+        long completed = completedCount.sum();
+        return completed == 0 ? 0 : totalServiceNanos.sum() / 1_000_000.0 / completed;
+    }
+
+    public double getAverageWaitTimeMillis() {
+        long completed = completedCount.sum();
+        return completed == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / completed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[queued=%d/%d (express=%d, media=%d), active=%d/%d, completed=%d, avgWait=%.1fms, avgService=%.1fms]",
+            name, getQueueDepth(), queueCapacity, getQueueDepth(Lane.EXPRESS), getQueueDepth(Lane.MEDIA),
+            getActiveCount(), concurrency,
+            getCompletedCount(), getAverageWaitTimeMillis(), getAverageServiceTimeMillis());
+    }
+
+    private static class StageTask implements LaneQueue.Entry {
+        private final Lane lane;
+        private final Runnable runnable;
+        private final long enqueuedAt = System.nanoTime();
+
+        private StageTask(Lane lane, Runnable runnable) {
+            this.lane = lane;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public Lane getLane() { return lane; }
+
+        @Override
+        public long getEnqueuedAt() { return enqueuedAt; }
+    }
+}
@@ -0,0 +1,86 @@
+package com.email.handler.pipeline;
+
+import com.email.handler.config.EmailHandlerProperties;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier, typically while
+ * blocking inside synchronized jakarta.mail code (SMTPTransport, IMAPFolder).
+ * A pinned virtual thread holds a carrier for the whole blocking call, so
+ * frequent reports mean the matching downstream limit should stay below the
+ * number of carrier threads. Only active in VIRTUAL execution mode.
+ */
+@Component
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int REPORTED_FRAMES = 8;
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    private final LongAdder pinnedCount = new LongAdder();
+    private RecordingStream recordingStream;
+
+    @PostConstruct
+    public void start() {
+        if (properties.getProcessing().getExecutionMode() != EmailHandlerProperties.ExecutionMode.VIRTUAL) {
+            return;
+        }
+
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT)
+            .withThreshold(Duration.ofMillis(properties.getProcessing().getPinningThreshold()))
+            .withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+
+        logger.info("Monitoring virtual thread pinning longer than {} ms", properties.getProcessing().getPinningThreshold());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.increment();
+
+        StringBuilder frames = new StringBuilder();
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> stack = event.getStackTrace().getFrames();
+            for (int i = 0; i < Math.min(REPORTED_FRAMES, stack.size()); i++) {
+                RecordedFrame frame = stack.get(i);
+                frames.append("\n\tat ")
+                    .append(frame.getMethod().getType().getName())
+                    .append('.')
+                    .append(frame.getMethod().getName())
+                    .append(':')
+                    .append(frame.getLineNumber());
+            }
+        }
+
+        logger.warn("Virtual thread {} pinned its carrier for {} ms{}",
+            event.getThread() != null ? event.getThread().getJavaName() : "?",
+            event.getDuration().toMillis(), frames);
+    }
+
+    public long getPinnedCount() {
+        return pinnedCount.sum();
+    }
+}
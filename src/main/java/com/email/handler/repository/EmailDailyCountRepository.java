@@ -0,0 +1,15 @@
+package com.email.handler.repository;
+
+import com.email.handler.model.EmailDailyCount;
+import com.email.handler.model.ProcessedEmail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface EmailDailyCountRepository extends JpaRepository<EmailDailyCount, Long> {
+
+    Optional<EmailDailyCount> findByDayAndStatus(LocalDate day, ProcessedEmail.ProcessingStatus status);
+}
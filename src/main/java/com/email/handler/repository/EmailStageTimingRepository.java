@@ -0,0 +1,38 @@
+package com.email.handler.repository;
+
+import com.email.handler.model.EmailStageTiming;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailStageTimingRepository extends JpaRepository<EmailStageTiming, Long> {
+
+    // Keyset-paged on (duration, id) descending; the first page starts after (MAX, MAX)
+    @Query("SELECT t FROM EmailStageTiming t WHERE t.stage = :stage AND t.endedAt >= :from AND t.endedAt < :to " +
+           "AND (t.durationMillis < :afterDuration OR (t.durationMillis = :afterDuration AND t.id < :afterId)) " +
+           "ORDER BY t.durationMillis DESC, t.id DESC")
+    List<EmailStageTiming> findSlowest(
+        @Param("stage") String stage,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        @Param("afterDuration") Long afterDuration,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+
+    List<EmailStageTiming> findByMessageIdInAndStageNotOrderByStartedAt(Collection<String> messageIds, String stage);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailStageTiming t WHERE t.endedAt < :cutoff")
+    int deleteEndedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
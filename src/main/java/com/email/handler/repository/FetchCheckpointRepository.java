@@ -0,0 +1,28 @@
+package com.email.handler.repository;
+
+import com.email.handler.model.FetchCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface FetchCheckpointRepository extends JpaRepository<FetchCheckpoint, Long> {
+
+    // Lowest position of any unfinished partition; everything up to it has been fetched
+    @Query("SELECT MIN(c.lastUid) FROM FetchCheckpoint c WHERE c.folder = :folder " +
+           "AND c.uidValidity = :uidValidity AND c.lastUid < c.rangeEnd")
+    Long findLowWaterMark(@Param("folder") String folder, @Param("uidValidity") Long uidValidity);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FetchCheckpoint c WHERE c.folder = :folder AND c.uidValidity = :uidValidity " +
+           "AND c.rangeEnd <= :cursor")
+    int deleteCoveredBy(
+        @Param("folder") String folder,
+        @Param("uidValidity") Long uidValidity,
+        @Param("cursor") Long cursor
+    );
+}
@@ -0,0 +1,13 @@
+package com.email.handler.repository;
+
+import com.email.handler.model.IngestionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IngestionCheckpointRepository extends JpaRepository<IngestionCheckpoint, Long> {
+
+    Optional<IngestionCheckpoint> findBySource(String source);
+}
@@ -1,24 +1,183 @@
 package com.email.handler.repository;
 
 import com.email.handler.model.ProcessedEmail;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface ProcessedEmailRepository extends JpaRepository<ProcessedEmail, Long> {
-    
+
     Optional<ProcessedEmail> findByMessageId(String messageId);
-    
+
     boolean existsByMessageId(String messageId);
-    
+
+    @Query("SELECT MAX(p.uid) FROM ProcessedEmail p WHERE p.folder = :folder AND p.uidValidity = :uidValidity")
+    Long findMaxUid(@Param("folder") String folder, @Param("uidValidity") Long uidValidity);
+
+    // Keyset-paged so that rows changing status while a batch is replayed
+    // never shift the window and cause entries to be skipped
+    @Query("SELECT p FROM ProcessedEmail p WHERE p.status = :status AND p.retryCount < :maxRetryCount " +
+           "AND p.id > :afterId AND (p.nextRetryAt IS NULL OR p.nextRetryAt <= :now) ORDER BY p.id")
     List<ProcessedEmail> findByStatusAndRetryCountLessThan(
-        ProcessedEmail.ProcessingStatus status, 
-        Integer maxRetryCount
+        @Param("status") ProcessedEmail.ProcessingStatus status,
+        @Param("maxRetryCount") Integer maxRetryCount,
+        @Param("afterId") Long afterId,
+        @Param("now") LocalDateTime now,
+        Pageable pageable
+    );
+
+    // Admin export: keyset-paged like the retry query, and read through a cursor so a
+    // chunk is written out as it arrives instead of being loaded as a list first
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT p.id AS id, p.messageId AS messageId, p.status AS status, p.completedStage AS completedStage, " +
+           "p.processedAt AS processedAt, p.retryCount AS retryCount, p.nextRetryAt AS nextRetryAt, " +
+           "p.errorMessage AS errorMessage, p.folder AS folder, p.uid AS uid, p.followUpState AS followUpState " +
+           "FROM ProcessedEmail p WHERE p.id > :afterId " +
+           "AND (:status IS NULL OR p.status = :status) AND (:folder IS NULL OR p.folder = :folder) " +
+           "AND (:from IS NULL OR p.processedAt >= :from) AND (:to IS NULL OR p.processedAt < :to) ORDER BY p.id")
+    Stream<StatusRow> streamStatus(
+        @Param("afterId") Long afterId,
+        @Param("status") ProcessedEmail.ProcessingStatus status,
+        @Param("folder") String folder,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        Limit limit
     );
-    
-    List<ProcessedEmail> findByProcessedAtBefore(LocalDateTime dateTime);
-}
\ No newline at end of file
+
+    @Query("SELECT p FROM ProcessedEmail p WHERE p.id > :afterId AND p.status = :status " +
+           "AND (:folder IS NULL OR p.folder = :folder) " +
+           "AND (:from IS NULL OR p.processedAt >= :from) AND (:to IS NULL OR p.processedAt < :to) ORDER BY p.id")
+    List<ProcessedEmail> findForReprocess(
+        @Param("afterId") Long afterId,
+        @Param("status") ProcessedEmail.ProcessingStatus status,
+        @Param("folder") String folder,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        Limit limit
+    );
+
+    // Compare-and-set, so an email picked up by both the retry job and an admin
+    // replay is only run once
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessedEmail p SET p.status = :to WHERE p.id = :id AND p.status = :from")
+    int transitionStatus(
+        @Param("id") Long id,
+        @Param("from") ProcessedEmail.ProcessingStatus from,
+        @Param("to") ProcessedEmail.ProcessingStatus to
+    );
+
+    // Only terminal rows are purged: FORWARDED, or FAILED with no retries left.
+    // Selects the few columns the purge needs instead of whole entities.
+    @Query("SELECT p.id AS id, p.processedAt AS processedAt, p.status AS status, p.spoolPath AS spoolPath " +
+           "FROM ProcessedEmail p WHERE p.id > :afterId AND p.processedAt < :cutoff " +
+           "AND (p.status = :forwarded OR (p.status = :failed AND p.retryCount >= :maxRetryCount)) " +
+           "ORDER BY p.id")
+    List<PurgeCandidate> findPurgeCandidates(
+        @Param("afterId") Long afterId,
+        @Param("cutoff") LocalDateTime cutoff,
+        @Param("forwarded") ProcessedEmail.ProcessingStatus forwarded,
+        @Param("failed") ProcessedEmail.ProcessingStatus failed,
+        @Param("maxRetryCount") Integer maxRetryCount,
+        Pageable pageable
+    );
+
+    @Modifying
+    @Query("DELETE FROM ProcessedEmail p WHERE p.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessedEmail p SET p.status = :failed, p.errorMessage = :reason " +
+           "WHERE p.status IN :inFlight")
+    int markInterrupted(
+        @Param("inFlight") Collection<ProcessedEmail.ProcessingStatus> inFlight,
+        @Param("failed") ProcessedEmail.ProcessingStatus failed,
+        @Param("reason") String reason
+    );
+
+    @Query("SELECT p.id AS id, p.folder AS folder, p.uidValidity AS uidValidity, p.uid AS uid " +
+           "FROM ProcessedEmail p WHERE p.id > :afterId AND p.status = :forwarded " +
+           "AND p.postProcessedAt IS NULL AND p.uid IS NOT NULL ORDER BY p.id")
+    List<MailboxReference> findPostProcessCandidates(
+        @Param("afterId") Long afterId,
+        @Param("forwarded") ProcessedEmail.ProcessingStatus forwarded,
+        Pageable pageable
+    );
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessedEmail p SET p.postProcessedAt = :now WHERE p.id IN :ids")
+    int markPostProcessed(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Takes the rows out of post-processing without touching their messages, keeping the reason
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessedEmail p SET p.postProcessedAt = :now, p.postProcessSkipped = :reason WHERE p.id IN :ids")
+    int markPostProcessSkipped(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now,
+                               @Param("reason") String reason);
+
+    // Compare-and-set on the follow-up state, so only one sender can ever claim a follow-up
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessedEmail p SET p.followUpState = :to " +
+           "WHERE p.messageId = :messageId AND p.followUpState = :from")
+    int transitionFollowUp(
+        @Param("messageId") String messageId,
+        @Param("from") ProcessedEmail.FollowUpState from,
+        @Param("to") ProcessedEmail.FollowUpState to
+    );
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessedEmail p SET p.followUpState = :to WHERE p.followUpState = :from")
+    int resetFollowUps(
+        @Param("from") ProcessedEmail.FollowUpState from,
+        @Param("to") ProcessedEmail.FollowUpState to
+    );
+
+    interface StatusRow {
+        Long getId();
+        String getMessageId();
+        ProcessedEmail.ProcessingStatus getStatus();
+        ProcessedEmail.ProcessingStatus getCompletedStage();
+        LocalDateTime getProcessedAt();
+        Integer getRetryCount();
+        LocalDateTime getNextRetryAt();
+        String getErrorMessage();
+        String getFolder();
+        Long getUid();
+        ProcessedEmail.FollowUpState getFollowUpState();
+    }
+
+    interface MailboxReference {
+        Long getId();
+        String getFolder();
+        Long getUidValidity();
+        Long getUid();
+    }
+
+    interface PurgeCandidate {
+        Long getId();
+        LocalDateTime getProcessedAt();
+        ProcessedEmail.ProcessingStatus getStatus();
+        String getSpoolPath();
+    }
+}
@@ -0,0 +1,268 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.EmailMessage;
+import com.email.handler.model.IngestionCheckpoint;
+import com.email.handler.repository.IngestionCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Bulk backfill from local mbox files and Maildir directories. Messages are spooled
+ * straight from the mapped archive, parsed in parallel and dispatched into the same
+ * pipeline as polled mail, so dedup drops whatever already came in over IMAP.
+ * <p>
+ * Each archive is checkpointed at the last message up to which everything has
+ * reached a final status; a backfill that was interrupted resumes there, and later
+ * scans only pick up messages added since.
+ */
+@Service
+public class ArchiveIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveIngestionService.class);
+    private static final long DEFER_PAUSE_MILLIS = 500;
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    @Autowired
+    private EmailProcessingService emailProcessingService;
+
+    @Autowired
+    private ImapEmailService imapEmailService;
+
+    @Autowired
+    private EmailSpoolService emailSpoolService;
+
+    @Autowired
+    private StageTimingService stageTimingService;
+
+    @Autowired
+    private IngestionCheckpointRepository ingestionCheckpointRepository;
+
+    private volatile boolean stopping;
+
+    @Scheduled(fixedDelayString = "#{emailHandlerProperties.ingestion.scanInterval}")
+    public void ingestArchives() {
+        EmailHandlerProperties.Ingestion ingestion = properties.getIngestion();
+        if (!ingestion.isEnabled()) {
+            return;
+        }
+        for (String path : ingestion.getPaths()) {
+            if (stopping) {
+                return;
+            }
+            try {
+                ingest(Path.of(path).toAbsolutePath().normalize());
+            } catch (Exception e) {
+                logger.error("Error ingesting archive {}: {}", path, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void ingest(Path path) throws Exception {
+        EmailHandlerProperties.Ingestion ingestion = properties.getIngestion();
+        String source = path.toString();
+        IngestionCheckpoint checkpoint = ingestionCheckpointRepository.findBySource(source)
+            .orElseGet(() -> new IngestionCheckpoint(source));
+        Progress progress = new Progress(checkpoint.getPosition());
+        long start = System.currentTimeMillis();
+
+        try (ArchiveSource archive = ArchiveSource.open(path, checkpoint.getPosition());
+             ExecutorService parsers = Executors.newFixedThreadPool(ingestion.getParallelism(), parserThreadFactory())) {
+            while (!stopping) {
+                Map<Long, Future<EmailMessage>> batch = new TreeMap<>();
+                ArchiveSource.Entry entry;
+                while (batch.size() < ingestion.getBatchSize() && (entry = archive.next()) != null) {
+                    ArchiveSource.Entry message = entry;
+                    batch.put(progress.start(message.checkpoint()), parsers.submit(() -> parse(source, message)));
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                List<EmailMessage> emails = new ArrayList<>();
+                Map<EmailMessage, Long> sequences = new IdentityHashMap<>();
+                for (Map.Entry<Long, Future<EmailMessage>> parsed : batch.entrySet()) {
+                    EmailMessage email = getParsed(parsed.getValue());
+                    if (email == null) {
+                        progress.finish(parsed.getKey());
+                    } else {
+                        emails.add(email);
+                        sequences.put(email, parsed.getKey());
+                    }
+                }
+                dispatch(emails, sequences, progress);
+                checkpoint = save(checkpoint, progress);
+            }
+
+            // The checkpoint may only pass messages once the pipeline is done with them
+            while (!progress.awaitFinished(1000) && !stopping) {
+                checkpoint = save(checkpoint, progress);
+            }
+        } finally {
+            checkpoint = save(checkpoint, progress);
+        }
+
+        if (progress.getCompleted() > 0) {
+            long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+            logger.info("Ingested {} messages from {} in {} ms ({} messages/sec), {} in total",
+                progress.getCompleted(), source, elapsed, progress.getCompleted() * 1000 / elapsed,
+                checkpoint.getMessageCount());
+        }
+    }
+
+    private EmailMessage parse(String source, ArchiveSource.Entry entry) throws IOException {
+        LocalDateTime readAt = LocalDateTime.now();
+        String key = source + "#" + entry.checkpoint();
+        // A failing spool (disk full, permissions) aborts the run rather than skipping the message
+        Path spoolPath = emailSpoolService.spool(entry.content(), key);
+
+        EmailMessage email;
+        try {
+            email = imapEmailService.parseSpooledMessage(spoolPath.toString());
+        } catch (Exception e) {
+            logger.error("Skipping unreadable message {} of {}: {}", entry.checkpoint(), source, e.getMessage());
+            emailSpoolService.delete(spoolPath.toString());
+            return null;
+        }
+        if (email.getMessageId() == null) {
+            // Dedup needs a stable id, or a resumed backfill would forward the message again
+            email.setMessageId("<" + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + "@archive>");
+        }
+        email.setFolder(source);
+        email.setFetchedAt(readAt);
+        stageTimingService.record(email, StageTimingService.FETCH, "archive", readAt);
+        return email;
+    }
+
+    private EmailMessage getParsed(Future<EmailMessage> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Offers the emails to the pipeline until all are admitted. The dispatcher blocks
+     * while the pipeline is full, which is what keeps reading from running ahead.
+     */
+    private void dispatch(List<EmailMessage> emails, Map<EmailMessage, Long> sequences, Progress progress)
+            throws InterruptedException {
+        List<EmailMessage> remaining = emails;
+        while (!remaining.isEmpty() && !stopping) {
+            Map<EmailMessage, CompletableFuture<Void>> admitted = new IdentityHashMap<>();
+            emailProcessingService.dispatchEmails("ingest", remaining, admitted);
+            admitted.forEach((email, completion) -> completion.whenComplete((result, error) -> {
+                if (error == null) {
+                    // Forwarded emails were released already; this drops the copy of a duplicate
+                    emailSpoolService.delete(email.getSpoolPath());
+                }
+                progress.finish(sequences.get(email));
+            }));
+
+            remaining = remaining.stream().filter(email -> !admitted.containsKey(email)).toList();
+            if (!remaining.isEmpty()) {
+                Thread.sleep(DEFER_PAUSE_MILLIS);
+            }
+        }
+    }
+
+    private IngestionCheckpoint save(IngestionCheckpoint checkpoint, Progress progress) {
+        long newlyCompleted = progress.takeUnsaved();
+        if (newlyCompleted == 0 && checkpoint.getId() != null) {
+            return checkpoint;
+        }
+        checkpoint.setPosition(progress.getCommitted());
+        checkpoint.setMessageCount(checkpoint.getMessageCount() + newlyCompleted);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return ingestionCheckpointRepository.save(checkpoint);
+    }
+
+    private ThreadFactory parserThreadFactory() {
+        if (properties.getProcessing().getExecutionMode() == EmailHandlerProperties.ExecutionMode.VIRTUAL) {
+            return Thread.ofVirtual().name("archive-parse-", 1).factory();
+        }
+        return Thread.ofPlatform().name("archive-parse-", 1).daemon(true).factory();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    /**
+     * Messages of one archive in read order. The committed checkpoint only moves past
+     * a message once it and every message read before it have finished.
+     */
+    static class Progress {
+        private final TreeMap<Long, String> open = new TreeMap<>();
+        private final Set<Long> finished = new HashSet<>();
+        private long sequence;
+        private String committed;
+        private long completed;
+        private long unsaved;
+
+        Progress(String committed) {
+            this.committed = committed;
+        }
+
+        synchronized long start(String checkpoint) {
+            open.put(++sequence, checkpoint);
+            return sequence;
+        }
+
+        synchronized void finish(long sequence) {
+            finished.add(sequence);
+            while (!open.isEmpty() && finished.remove(open.firstKey())) {
+                committed = open.pollFirstEntry().getValue();
+                completed++;
+                unsaved++;
+            }
+            if (open.isEmpty()) {
+                notifyAll();
+            }
+        }
+
+        synchronized boolean awaitFinished(long timeoutMillis) throws InterruptedException {
+            if (!open.isEmpty()) {
+                wait(timeoutMillis);
+            }
+            return open.isEmpty();
+        }
+
+        synchronized String getCommitted() { return committed; }
+
+        synchronized long getCompleted() { return completed; }
+
+        synchronized long takeUnsaved() {
+            long taken = unsaved;
+            unsaved = 0;
+            return taken;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.email.handler.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A local mail archive read message by message, the offline counterpart of the
+ * IMAP fetch. Every entry carries the checkpoint to resume after it, so a backfill
+ * that was interrupted continues with the next message instead of starting over.
+ */
+public interface ArchiveSource extends Closeable {
+
+    /**
+     * The next message, or null once the archive is exhausted.
+     */
+    Entry next() throws IOException;
+
+    /**
+     * Raw MIME of one message, usually a view of a memory-mapped file.
+     */
+    record Entry(String checkpoint, ByteBuffer content) {}
+
+    /**
+     * Opens a Maildir (a directory with cur/ and new/) or an mbox file, positioned
+     * after the given checkpoint, or at the start when it is null.
+     */
+    static ArchiveSource open(Path path, String checkpoint) throws IOException {
+        if (Files.isDirectory(path)) {
+            return new MaildirArchiveSource(path, checkpoint);
+        }
+        return new MboxArchiveSource(path, checkpoint);
+    }
+}
@@ -2,8 +2,11 @@ package com.email.handler.service;
 
 import com.email.handler.config.EmailHandlerProperties;
 import com.email.handler.model.EmailAttachment;
+import com.email.handler.pipeline.FlightEvents;
+import com.email.handler.pipeline.PipelineMetrics;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +21,10 @@ import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
@@ -36,6 +41,12 @@ public class AudioVideoProcessingService {
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private StageTimingService stageTimingService;
+
     private Set<String> supportedAudioFormats;
     private Set<String> supportedVideoFormats;
 
@@ -62,33 +73,77 @@ public class AudioVideoProcessingService {
     }
 
     public void processAttachments(List<EmailAttachment> attachments) {
+        processAttachments(null, attachments);
+    }
+
+    /**
+     * Converts the attachments, recording each conversion in the timing ledger of the given email.
+     */
+    public void processAttachments(String messageId, List<EmailAttachment> attachments) {
         initializeSupportedFormats();
         
         for (EmailAttachment attachment : attachments) {
+            if (attachment.getTranscript() != null) {
+                // Already converted by an earlier attempt
+                continue;
+            }
             if (isAudioVideoFile(attachment)) {
                 attachment.setAudioVideo(true);
+                Timer.Sample sample = pipelineMetrics.start();
+                LocalDateTime startedAt = LocalDateTime.now();
+                boolean converted = false;
                 try {
                     String transcript = convertToTranscript(attachment);
                     attachment.setTranscript(transcript);
+                    converted = true;
                     logger.info("Successfully converted attachment {} to transcript", attachment.getFilename());
                 } catch (Exception e) {
                     logger.error("Failed to convert attachment {} to transcript: {}", 
                         attachment.getFilename(), e.getMessage(), e);
                     attachment.setTranscript("Error: Unable to convert audio/video to text - " + e.getMessage());
+                } finally {
+                    pipelineMetrics.stop(sample, PipelineMetrics.CONVERSION, converted,
+                        "format", formatOf(attachment),
+                        "size", PipelineMetrics.sizeBucket(attachment.getContent() != null ? attachment.getContent().length : 0));
+                    stageTimingService.record(messageId, StageTimingService.CONVERSION, attachment.getFilename(),
+                        startedAt, LocalDateTime.now());
                 }
             }
         }
     }
 
-    private boolean isAudioVideoFile(EmailAttachment attachment) {
+    /**
+     * Routes by the sniffed content when the attachment was inspected, so a PDF named
+     * .mp4 stays out of the conversion API and an extensionless voice memo gets in.
+     * Attachments that never had their bytes inspected fall back to the name, as do
+     * those the sniffer did not recognise but the sender declared as audio or video.
+     */
+    // Package-private for the JMH classification benchmark
+    boolean isAudioVideoFile(EmailAttachment attachment) {
+        initializeSupportedFormats();
+        String format = formatOf(attachment);
+        return supportedAudioFormats.contains(format) || supportedVideoFormats.contains(format);
+    }
+
+    private String formatOf(EmailAttachment attachment) {
+        String sniffed = attachment.getSniffedFormat();
+        if (sniffed != null && !(sniffed.equals(MediaSniffer.UNRECOGNIZED) && declaresMedia(attachment))) {
+            return sniffed;
+        }
         if (attachment.getFilename() == null) {
+            return "";
+        }
+        return getFileExtension(attachment.getFilename().toLowerCase());
+    }
+
+    // Containers the sniffer does not know, or MP3s that start with junk, still carry a media Content-Type
+    private static boolean declaresMedia(EmailAttachment attachment) {
+        String contentType = attachment.getContentType();
+        if (contentType == null) {
             return false;
         }
-        
-        String filename = attachment.getFilename().toLowerCase();
-        String extension = getFileExtension(filename);
-        
-        return supportedAudioFormats.contains(extension) || supportedVideoFormats.contains(extension);
+        String type = contentType.toLowerCase();
+        return type.startsWith("audio/") || type.startsWith("video/");
     }
 
     private String getFileExtension(String filename) {
@@ -124,18 +179,36 @@ public class AudioVideoProcessingService {
         
         body.add("file", fileResource);
         body.add("filename", attachment.getFilename());
-        body.add("contentType", attachment.getContentType());
+        body.add("contentType", declaredContentType(attachment));
 
         HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
 
         logger.info("Sending conversion request for file: {}", attachment.getFilename());
         
-        ResponseEntity<String> response = restTemplate.exchange(
-            apiUrl,
-            HttpMethod.POST,
-            requestEntity,
-            String.class
-        );
+        FlightEvents.ConversionRequest event = new FlightEvents.ConversionRequest();
+        event.begin();
+        ResponseEntity<String> response;
+        int status = 0;
+        try {
+            response = restTemplate.exchange(
+                apiUrl,
+                HttpMethod.POST,
+                requestEntity,
+                String.class
+            );
+            status = response.getStatusCode().value();
+        } catch (HttpStatusCodeException e) {
+            status = e.getStatusCode().value();
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.filename = attachment.getFilename();
+                event.bytes = attachment.getContent() != null ? attachment.getContent().length : 0;
+                event.status = status;
+                event.success = status >= 200 && status < 300;
+                event.commit();
+            }
+        }
 
         if (response.getStatusCode().is2xxSuccessful()) {
             return parseTranscriptFromResponse(response.getBody());
@@ -144,6 +217,20 @@ public class AudioVideoProcessingService {
         }
     }
 
+    /**
+     * The sender's Content-Type, unless it is missing or generic and the content was
+     * recognised; mail clients often send recordings as application/octet-stream.
+     */
+    private String declaredContentType(EmailAttachment attachment) {
+        String contentType = attachment.getContentType();
+        String sniffed = MediaSniffer.mimeType(attachment.getSniffedFormat());
+        if (sniffed != null && (contentType == null
+                || contentType.toLowerCase().startsWith("application/octet-stream"))) {
+            return sniffed;
+        }
+        return contentType;
+    }
+
     private String parseTranscriptFromResponse(String responseBody) throws Exception {
         try {
             ObjectMapper objectMapper = new ObjectMapper();
@@ -0,0 +1,43 @@
+package com.email.handler.service;
+
+import java.time.Duration;
+
+/**
+ * Fast lookup layer of {@link DuplicatePreventionService} in front of the
+ * processed_emails table. The table stays the source of truth, so a store may
+ * lose its most recent entries in a crash: a miss only costs a database query.
+ */
+public interface DedupStore {
+
+    DedupStore NONE = new DedupStore() {
+        @Override
+        public boolean contains(String messageId) {
+            return false;
+        }
+
+        @Override
+        public void remember(String messageId, String status, Duration ttl) {
+        }
+    };
+
+    boolean contains(String messageId);
+
+    void remember(String messageId, String status, Duration ttl);
+
+    /**
+     * Makes the entries remembered so far durable. Called on a fixed interval, so many
+     * entries share one write and fsync.
+     */
+    default void sync() {
+    }
+
+    /**
+     * Drops entries whose time to live has passed and returns how many there were.
+     */
+    default int purgeExpired() {
+        return 0;
+    }
+
+    default void close() {
+    }
+}
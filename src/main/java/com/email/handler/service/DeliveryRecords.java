@@ -0,0 +1,70 @@
+package com.email.handler.service;
+
+import com.email.handler.model.EmailAttachment;
+import com.email.handler.model.EmailMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON records of processed emails for machine consumers. A record carries the
+ * headers, body and attachment metadata with transcripts, but not attachment
+ * content; the MIME Maildir format keeps that.
+ */
+final class DeliveryRecords {
+
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private DeliveryRecords() {}
+
+    static Map<String, Object> email(EmailMessage email, boolean transcriptsToFollow) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "email");
+        record.put("messageId", email.getMessageId());
+        record.put("folder", email.getFolder());
+        record.put("from", email.getFrom());
+        record.put("to", email.getTo());
+        record.put("subject", email.getSubject());
+        record.put("headers", email.getHeaders());
+        record.put("contentType", email.getContentType());
+        record.put("body", email.getContent());
+        record.put("bodyTruncated", email.getTruncatedBodyPart() != null);
+        record.put("transcriptsToFollow", transcriptsToFollow);
+
+        List<Map<String, Object>> attachments = new ArrayList<>();
+        if (email.getAttachments() != null) {
+            for (EmailAttachment attachment : email.getAttachments()) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("filename", attachment.getFilename());
+                entry.put("contentType", attachment.getContentType());
+                entry.put("size", attachment.getSize());
+                entry.put("mediaFormat", attachment.getSniffedFormat());
+                entry.put("transcript", transcriptsToFollow ? null : attachment.getTranscript());
+                attachments.add(entry);
+            }
+        }
+        record.put("attachments", attachments);
+        return record;
+    }
+
+    static Map<String, Object> followUp(EmailMessage email) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "transcripts");
+        record.put("messageId", email.getMessageId());
+
+        List<Map<String, Object>> transcripts = new ArrayList<>();
+        for (EmailAttachment attachment : email.getAttachments()) {
+            if (attachment.isAudioVideo() && attachment.getTranscript() != null) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("filename", attachment.getFilename());
+                entry.put("transcript", attachment.getTranscript());
+                transcripts.add(entry);
+            }
+        }
+        record.put("transcripts", transcripts);
+        return record;
+    }
+}
@@ -0,0 +1,110 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.EmailMessage;
+import com.email.handler.pipeline.DownstreamLimiter;
+import com.email.handler.pipeline.PipelineMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers processed emails to the configured {@link DeliverySink}s, all of them at
+ * once. Every sink an email reached is noted on the email (and recorded in the
+ * outbox when the email fails), so a retry only delivers to the sinks it missed.
+ */
+@Service
+public class DeliveryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryService.class);
+    private static final String FOLLOW_UP = "/follow-up";
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    @Autowired
+    private EmailForwardingService emailForwardingService;
+
+    @Autowired
+    private DownstreamLimiter downstreamLimiter;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    private final List<DeliverySink> sinks = new ArrayList<>();
+    private DeliverySink primarySink;
+
+    @PostConstruct
+    public void initialize() throws Exception {
+        EmailHandlerProperties.Delivery delivery = properties.getDelivery();
+        for (EmailHandlerProperties.DeliverySinkType type : new LinkedHashSet<>(delivery.getSinks())) {
+            sinks.add(switch (type) {
+                case SMTP -> new SmtpDeliverySink(emailForwardingService, downstreamLimiter);
+                case MAILDIR -> new MaildirDeliverySink(delivery.getMaildir(), emailForwardingService, pipelineMetrics);
+                // Fails at startup when the webhook is selected but has no URL
+                case WEBHOOK -> new WebhookDeliverySink(delivery.getWebhook(), restTemplateBuilder
+                    .setConnectTimeout(Duration.ofMillis(delivery.getWebhook().getTimeout()))
+                    .setReadTimeout(Duration.ofMillis(delivery.getWebhook().getTimeout()))
+                    .build(), pipelineMetrics);
+            });
+        }
+        if (sinks.isEmpty()) {
+            throw new IllegalStateException("email.handler.delivery.sinks must name at least one sink");
+        }
+        // Transcript follow-ups are threaded against the forward's Message-ID, so SMTP
+        // provides the id wherever it is listed
+        primarySink = sinks.stream().filter(sink -> sink instanceof SmtpDeliverySink).findFirst().orElse(sinks.get(0));
+        logger.info("Delivering emails to {}", sinks.stream().map(DeliverySink::getName).toList());
+    }
+
+    /**
+     * Delivers the email to every sink it has not reached yet. Completes once all of
+     * them are done, with the forward's Message-ID when SMTP is among the sinks (else
+     * the id the first sink delivered it under), or fails if any of them failed.
+     */
+    public CompletableFuture<String> deliver(EmailMessage email, boolean transcriptsToFollow) {
+        List<CompletableFuture<?>> deliveries = new ArrayList<>();
+        for (DeliverySink sink : sinks) {
+            if (!email.getDeliveries().containsKey(sink.getName())) {
+                deliveries.add(sink.deliver(email, transcriptsToFollow)
+                    .thenAccept(id -> email.getDeliveries().put(sink.getName(), id != null ? id : "")));
+            }
+        }
+        return CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new))
+            .thenApply(delivered -> email.getDeliveries().get(primarySink.getName()));
+    }
+
+    /**
+     * Delivers the transcripts of an email delivered ahead of them to every sink that
+     * has not received them yet.
+     */
+    public CompletableFuture<Void> deliverFollowUp(EmailMessage email) {
+        List<CompletableFuture<?>> deliveries = new ArrayList<>();
+        for (DeliverySink sink : sinks) {
+            String key = sink.getName() + FOLLOW_UP;
+            if (!email.getDeliveries().containsKey(key)) {
+                deliveries.add(sink.deliverFollowUp(email)
+                    .thenRun(() -> email.getDeliveries().put(key, "")));
+            }
+        }
+        return CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new));
+    }
+
+    @PreDestroy
+    public void close() {
+        sinks.forEach(DeliverySink::close);
+    }
+}
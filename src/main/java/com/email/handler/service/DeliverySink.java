@@ -0,0 +1,37 @@
+package com.email.handler.service;
+
+import com.email.handler.model.EmailMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Destination processed emails are delivered to. {@link DeliveryService} hands each
+ * email to every configured sink and tracks which of them it reached, so all sinks
+ * share the pipeline's retry and status handling.
+ * <p>
+ * A sink may deliver on the calling thread and return a completed future, or queue
+ * the email and complete the future later, e.g. once a batch has been accepted.
+ * A failed future fails the email, which is then retried for the sinks it missed.
+ */
+public interface DeliverySink {
+
+    /**
+     * Key under which deliveries to this sink are recorded; must stay stable across restarts.
+     */
+    String getName();
+
+    /**
+     * Delivers an email. With transcriptsToFollow its transcripts are not known yet and
+     * follow through {@link #deliverFollowUp}. Completes with the id the email was
+     * delivered under, which follow-ups may refer to.
+     */
+    CompletableFuture<String> deliver(EmailMessage email, boolean transcriptsToFollow);
+
+    /**
+     * Delivers the transcripts of an email that was delivered ahead of them.
+     */
+    CompletableFuture<Void> deliverFollowUp(EmailMessage email);
+
+    default void close() {
+    }
+}
@@ -2,21 +2,23 @@ package com.email.handler.service;
 
 import com.email.handler.config.EmailHandlerProperties;
 import com.email.handler.model.ProcessedEmail;
+import com.email.handler.pipeline.FlightEvents;
+import com.email.handler.pipeline.PipelineMetrics;
 import com.email.handler.repository.ProcessedEmailRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.time.LocalDateTime;
 
 @Service
 public class DuplicatePreventionService {
 
     private static final Logger logger = LoggerFactory.getLogger(DuplicatePreventionService.class);
-    private static final String CACHE_KEY_PREFIX = "email:processed:";
 
     @Autowired
     private EmailHandlerProperties properties;
@@ -24,22 +26,25 @@ public class DuplicatePreventionService {
     @Autowired
     private ProcessedEmailRepository processedEmailRepository;
 
-    @Autowired(required = false)
-    private RedisTemplate<String, String> redisTemplate;
+    @Autowired
+    private DedupStore dedupStore;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
 
     public boolean isAlreadyProcessed(String messageId) {
+        FlightEvents.DedupLookup event = new FlightEvents.DedupLookup();
+        event.begin();
         if (!properties.getDuplicatePrevention().isEnabled()) {
+            commitLookup(event, messageId, "disabled", false);
             return false;
         }
 
-        // Check Redis cache first (faster)
-        String cacheKey = CACHE_KEY_PREFIX + messageId;
-        if (redisTemplate != null) {
-            Boolean cached = redisTemplate.hasKey(cacheKey);
-            if (Boolean.TRUE.equals(cached)) {
-                logger.debug("Message {} found in cache, already processed", messageId);
-                return true;
-            }
+        // Check the dedup store first (faster)
+        if (dedupStore.contains(messageId)) {
+            logger.debug("Message {} found in cache, already processed", messageId);
+            commitLookup(event, messageId, "cache", true);
+            return true;
         }
 
         // Check database as fallback
@@ -47,64 +52,117 @@ public class DuplicatePreventionService {
         if (existsInDb) {
             logger.debug("Message {} found in database, already processed", messageId);
             // Update cache for future lookups
-            if (redisTemplate != null) {
-                Duration cacheDuration = parseDuration(properties.getDuplicatePrevention().getCacheDuration());
-                redisTemplate.opsForValue().set(cacheKey, "processed", cacheDuration.toSeconds(), TimeUnit.SECONDS);
-            }
+            dedupStore.remember(messageId, "processed", getCacheDuration());
+            commitLookup(event, messageId, "database", true);
             return true;
         }
 
+        commitLookup(event, messageId, "database", false);
         return false;
     }
 
-    public void markAsProcessed(String messageId, ProcessedEmail.ProcessingStatus status) {
+    private void commitLookup(FlightEvents.DedupLookup event, String messageId, String source, boolean duplicate) {
+        if (event.shouldCommit()) {
+            event.messageId = messageId;
+            event.source = source;
+            event.cacheHit = "cache".equals(source);
+            event.duplicate = duplicate;
+            event.commit();
+        }
+    }
+
+    /**
+     * Claims a message by inserting its row. Returns false if the row already exists,
+     * i.e. another copy of the message got there first and this one must be dropped.
+     */
+    public boolean markAsProcessed(String messageId, ProcessedEmail.ProcessingStatus status) {
         if (!properties.getDuplicatePrevention().isEnabled()) {
-            return;
+            return true;
         }
 
         try {
-            // Save to database
+            // Save to database; the unique message_id makes the insert the claim
             ProcessedEmail processedEmail = new ProcessedEmail(messageId, status);
-            processedEmailRepository.save(processedEmail);
+            processedEmailRepository.saveAndFlush(processedEmail);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Message {} was claimed by another copy", messageId);
+            return false;
+        }
+        pipelineMetrics.recordTransition(null, status);
 
-            // Cache for quick lookup
-            if (redisTemplate != null) {
-                String cacheKey = CACHE_KEY_PREFIX + messageId;
-                Duration cacheDuration = parseDuration(properties.getDuplicatePrevention().getCacheDuration());
-                redisTemplate.opsForValue().set(cacheKey, status.name(), cacheDuration.toSeconds(), TimeUnit.SECONDS);
-            }
+        // Cache for quick lookup
+        dedupStore.remember(messageId, status.name(), getCacheDuration());
 
-            logger.debug("Marked message {} as processed with status {}", messageId, status);
-        } catch (Exception e) {
-            logger.error("Error marking message {} as processed: {}", messageId, e.getMessage(), e);
-        }
+        logger.debug("Marked message {} as processed with status {}", messageId, status);
+        return true;
     }
 
     public void updateProcessingStatus(String messageId, ProcessedEmail.ProcessingStatus status, String errorMessage) {
         try {
             ProcessedEmail processedEmail = processedEmailRepository.findByMessageId(messageId)
-                .orElse(new ProcessedEmail(messageId, status));
+                .orElse(new ProcessedEmail(messageId, null));
+            ProcessedEmail.ProcessingStatus previousStatus = processedEmail.getStatus();
             
             processedEmail.setStatus(status);
-            if (errorMessage != null) {
-                processedEmail.setErrorMessage(errorMessage);
+            if (isCompletedStage(status) && !processedEmail.hasCompleted(status)) {
+                processedEmail.setCompletedStage(status);
+            }
+            if (status == ProcessedEmail.ProcessingStatus.FAILED) {
+                // Every failure counts, so an email can't be retried forever
+                processedEmail.setErrorMessage(errorMessage != null ? errorMessage : "Unknown error");
                 processedEmail.setRetryCount(processedEmail.getRetryCount() + 1);
+                processedEmail.setNextRetryAt(LocalDateTime.now().plus(retryBackoff(processedEmail.getRetryCount())));
             }
             
             processedEmailRepository.save(processedEmail);
+            pipelineMetrics.recordTransition(previousStatus, status);
 
             // Update cache
-            if (redisTemplate != null) {
-                String cacheKey = CACHE_KEY_PREFIX + messageId;
-                Duration cacheDuration = parseDuration(properties.getDuplicatePrevention().getCacheDuration());
-                redisTemplate.opsForValue().set(cacheKey, status.name(), cacheDuration.toSeconds(), TimeUnit.SECONDS);
-            }
+            dedupStore.remember(messageId, status.name(), getCacheDuration());
 
         } catch (Exception e) {
             logger.error("Error updating processing status for message {}: {}", messageId, e.getMessage(), e);
         }
     }
 
+    // Group commit: entries remembered since the last tick share one write and fsync
+    @Scheduled(fixedDelayString = "#{emailHandlerProperties.duplicatePrevention.syncInterval}")
+    public void syncStore() {
+        try {
+            dedupStore.sync();
+        } catch (Exception e) {
+            logger.error("Error syncing dedup store: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drops dedup store entries older than the cache duration; called by the retention job.
+     */
+    public int purgeExpiredEntries() {
+        return dedupStore.purgeExpired();
+    }
+
+    /**
+     * How long a message is remembered as processed; also the retention age of processed_emails rows.
+     */
+    public Duration getCacheDuration() {
+        return parseDuration(properties.getDuplicatePrevention().getCacheDuration());
+    }
+
+    private boolean isCompletedStage(ProcessedEmail.ProcessingStatus status) {
+        return status == ProcessedEmail.ProcessingStatus.RECEIVED ||
+               status == ProcessedEmail.ProcessingStatus.CONVERTED ||
+               status == ProcessedEmail.ProcessingStatus.FORWARDED;
+    }
+
+    private Duration retryBackoff(int retryCount) {
+        // Exponential backoff: initial, 2x, 4x, ... capped at the configured maximum
+        long initialDelay = properties.getProcessing().getRetryInitialDelay();
+        long maxDelay = properties.getProcessing().getRetryMaxDelay();
+        int exponent = Math.min(Math.max(retryCount - 1, 0), 30);
+        return Duration.ofMillis(Math.min(initialDelay << exponent, maxDelay));
+    }
+
     private Duration parseDuration(String duration) {
         try {
             if (duration.endsWith("h")) {
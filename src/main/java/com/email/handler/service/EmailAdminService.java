@@ -0,0 +1,234 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.ProcessedEmail;
+import com.email.handler.pipeline.DispatchCycle;
+import com.email.handler.repository.ProcessedEmailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Operations on processed_emails for the admin API: export of status rows and
+ * replay of failed emails matching a query. Both walk the table in id order one
+ * bounded chunk at a time, so memory use does not depend on how many rows match,
+ * and both can be resumed from the last id they reported.
+ */
+@Service
+public class EmailAdminService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailAdminService.class);
+    private static final long DEFER_PAUSE_MILLIS = 500;
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    @Autowired
+    private ProcessedEmailRepository processedEmailRepository;
+
+    @Autowired
+    private EmailProcessingService emailProcessingService;
+
+    private final AtomicLong jobSequence = new AtomicLong();
+    private volatile ReprocessJob currentJob;
+
+    /**
+     * Filter of the admin queries; null fields match everything. The time window is
+     * on processed_at, when the email was first received.
+     */
+    public record EmailQuery(ProcessedEmail.ProcessingStatus status, String folder,
+                             LocalDateTime from, LocalDateTime to) {}
+
+    @FunctionalInterface
+    public interface RowWriter {
+        void write(ProcessedEmailRepository.StatusRow row) throws IOException;
+    }
+
+    /**
+     * Writes the next chunk of matching rows after afterId, read from a database cursor,
+     * and returns the id of the last one, or null if there were none. Each chunk is a
+     * short transaction of its own, so a slow client never holds a connection for the
+     * whole export.
+     */
+    @Transactional(readOnly = true)
+    public Long exportChunk(EmailQuery query, long afterId, RowWriter writer) throws IOException {
+        Long lastId = null;
+        try (Stream<ProcessedEmailRepository.StatusRow> rows = processedEmailRepository.streamStatus(afterId,
+                query.status(), query.folder(), query.from(), query.to(),
+                Limit.of(properties.getAdmin().getExportChunkSize()))) {
+            Iterator<ProcessedEmailRepository.StatusRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ProcessedEmailRepository.StatusRow row = iterator.next();
+                writer.write(row);
+                lastId = row.getId();
+            }
+        }
+        return lastId;
+    }
+
+    /**
+     * Starts replaying the FAILED emails matching the query, in the background, at no
+     * more than the given rate (capped at admin.reprocess-rate). Only one replay runs
+     * at a time.
+     */
+    public synchronized ReprocessStatus startReprocess(EmailQuery query, long afterId, Double rate) {
+        if (currentJob != null && currentJob.state == ReprocessState.RUNNING) {
+            throw new IllegalStateException("Replay #" + currentJob.id + " is still running");
+        }
+        double maxRate = properties.getAdmin().getReprocessRate();
+        double effectiveRate = rate != null && rate > 0 ? Math.min(rate, maxRate) : maxRate;
+
+        ReprocessJob job = new ReprocessJob(jobSequence.incrementAndGet(), query, afterId, effectiveRate);
+        currentJob = job;
+        Thread.ofPlatform().name("reprocess-" + job.id).daemon(true).start(() -> replay(job));
+        logger.info("Started replay #{} of failed emails matching {} after id {} at {} emails/sec",
+            job.id, query, afterId, effectiveRate);
+        return job.status();
+    }
+
+    public ReprocessStatus getReprocessStatus() {
+        ReprocessJob job = currentJob;
+        return job != null ? job.status() : null;
+    }
+
+    /**
+     * Stops the running replay after the emails it already admitted; returns its status.
+     */
+    public ReprocessStatus cancelReprocess() {
+        ReprocessJob job = currentJob;
+        if (job == null) {
+            return null;
+        }
+        job.cancelled = true;
+        return job.status();
+    }
+
+    private void replay(ReprocessJob job) {
+        EmailHandlerProperties.Admin admin = properties.getAdmin();
+        // Dispatch in slices of about a tenth of a second's worth, so the rate holds over short spans too
+        int slice = (int) Math.max(1, Math.min(admin.getReprocessBatchSize(), Math.round(job.rate / 10)));
+        long sliceNanos = (long) (TimeUnit.SECONDS.toNanos(1) * slice / job.rate);
+        long nextSlot = System.nanoTime();
+
+        try {
+            while (!job.cancelled) {
+                List<ProcessedEmail> batch = processedEmailRepository.findForReprocess(job.position,
+                    ProcessedEmail.ProcessingStatus.FAILED, job.query.folder(), job.query.from(), job.query.to(),
+                    Limit.of(admin.getReprocessBatchSize()));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                job.matched.addAndGet(batch.size());
+
+                for (int i = 0; i < batch.size() && !job.cancelled; i += slice) {
+                    long wait = nextSlot - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    nextSlot = Math.max(nextSlot, System.nanoTime() - sliceNanos) + sliceNanos;
+                    dispatch(job, batch.subList(i, Math.min(i + slice, batch.size())));
+                }
+            }
+            job.finish(job.cancelled ? ReprocessState.CANCELLED : ReprocessState.COMPLETED, null);
+        } catch (Exception e) {
+            logger.error("Replay #{} failed at id {}: {}", job.id, job.position, e.getMessage(), e);
+            job.finish(ReprocessState.FAILED, e.getMessage());
+        }
+        logger.info("Replay #{} {}: {} matched, {} admitted, {} succeeded, {} failed, resume after id {}",
+            job.id, job.state, job.matched, job.admitted, job.succeeded, job.failed, job.position);
+    }
+
+    /**
+     * Offers the emails to the pipeline until all are admitted; the dispatcher's
+     * in-flight limit applies on top of the job's rate.
+     */
+    private void dispatch(ReprocessJob job, List<ProcessedEmail> emails) throws InterruptedException {
+        List<ProcessedEmail> remaining = emails;
+        while (!remaining.isEmpty()) {
+            DispatchCycle cycle = emailProcessingService.replayEmails(remaining);
+            job.admitted.addAndGet(cycle.getAdmitted());
+            cycle.getCompletion().whenComplete((result, error) -> {
+                job.succeeded.addAndGet(cycle.getSucceeded());
+                job.failed.addAndGet(cycle.getFailed());
+            });
+
+            int admitted = remaining.size() - cycle.getDeferred();
+            if (admitted > 0) {
+                job.position = remaining.get(admitted - 1).getId();
+            }
+            remaining = remaining.subList(admitted, remaining.size());
+            if (!remaining.isEmpty()) {
+                if (job.cancelled) {
+                    return;
+                }
+                Thread.sleep(DEFER_PAUSE_MILLIS);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        cancelReprocess();
+    }
+
+    public enum ReprocessState {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    /**
+     * Progress of a replay. {@code position} is the id of the last email admitted; pass
+     * it as afterId to resume a cancelled or failed replay.
+     */
+    public record ReprocessStatus(long id, ReprocessState state, EmailQuery query, double rate,
+                                  LocalDateTime startedAt, LocalDateTime finishedAt, long position,
+                                  long matched, long admitted, long succeeded, long failed, String error) {}
+
+    private static class ReprocessJob {
+        private final long id;
+        private final EmailQuery query;
+        private final double rate;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong matched = new AtomicLong();
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile long position;
+        private volatile boolean cancelled;
+        private volatile ReprocessState state = ReprocessState.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        ReprocessJob(long id, EmailQuery query, long afterId, double rate) {
+            this.id = id;
+            this.query = query;
+            this.position = afterId;
+            this.rate = rate;
+        }
+
+        void finish(ReprocessState state, String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.state = state;
+        }
+
+        ReprocessStatus status() {
+            return new ReprocessStatus(id, state, query, rate, startedAt, finishedAt, position,
+                matched.get(), admitted.get(), succeeded.get(), failed.get(), error);
+        }
+    }
+}
@@ -3,8 +3,12 @@ package com.email.handler.service;
 import com.email.handler.config.EmailHandlerProperties;
 import com.email.handler.model.EmailAttachment;
 import com.email.handler.model.EmailMessage;
+import com.email.handler.pipeline.FlightEvents;
+import com.email.handler.pipeline.PipelineMetrics;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.*;
 import jakarta.mail.internet.*;
+import jakarta.mail.util.SharedFileInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +17,8 @@ import org.springframework.stereotype.Service;
 import jakarta.activation.DataHandler;
 import jakarta.activation.DataSource;
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
@@ -26,26 +32,37 @@ public class EmailForwardingService {
     @Autowired
     private EmailHandlerProperties properties;
 
-    public void forwardEmail(EmailMessage originalEmail) throws MessagingException {
-        Properties props = new Properties();
-        props.put("mail.smtp.host", properties.getSmtp().getHost());
-        props.put("mail.smtp.port", properties.getSmtp().getPort());
-        props.put("mail.smtp.auth", "true");
-        
-        if (properties.getSmtp().isStarttlsEnabled()) {
-            props.put("mail.smtp.starttls.enable", "true");
-        }
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
 
-        Session session = Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(
-                    properties.getSmtp().getUsername(),
-                    properties.getSmtp().getPassword()
-                );
-            }
-        });
+    public String forwardEmail(EmailMessage originalEmail) throws MessagingException {
+        return forwardEmail(originalEmail, false);
+    }
 
+    /**
+     * Forwards the email and returns the Message-ID it was sent with. With
+     * transcriptsToFollow the forward announces a separate transcript follow-up
+     * instead of waiting for the transcripts.
+     */
+    public String forwardEmail(EmailMessage originalEmail, boolean transcriptsToFollow) throws MessagingException {
+        MimeMessage forwardedMessage = buildForward(originalEmail, transcriptsToFollow);
+        
+        // Send the message
+        send(forwardedMessage);
+        
+        logger.info("Successfully forwarded email with subject: {}", forwardedMessage.getSubject());
+        return forwardedMessage.getMessageID();
+    }
+
+    /**
+     * Assembles the forward of an email, ready to send. Package-private so the
+     * JMH benchmarks can measure MIME assembly without an SMTP server.
+     */
+    MimeMessage buildForward(EmailMessage originalEmail, boolean transcriptsToFollow) throws MessagingException {
+        Timer.Sample buildSample = pipelineMetrics.start();
+        FlightEvents.MimeBuild buildEvent = new FlightEvents.MimeBuild();
+        buildEvent.begin();
+        Session session = createSession();
         MimeMessage forwardedMessage = new MimeMessage(session);
         
         // Set basic properties
@@ -54,7 +71,7 @@ public class EmailForwardingService {
             InternetAddress.parse(properties.getSmtp().getToAddress()));
         
         // Forward the subject with prefix
-        String forwardedSubject = "Fwd: " + (originalEmail.getSubject() != null ? originalEmail.getSubject() : "");
+        String forwardedSubject = forwardedSubject(originalEmail);
         forwardedMessage.setSubject(forwardedSubject);
 
         // Preserve important headers
@@ -78,7 +95,12 @@ public class EmailForwardingService {
         }
         
         // Add transcripts if any
-        addTranscriptsToContent(originalEmail, contentBuilder);
+        if (transcriptsToFollow) {
+            contentBuilder.append("\n\n---------- Audio/Video Transcripts ----------\n");
+            contentBuilder.append("Transcripts of the attachments will follow in a reply to this message.\n");
+        } else {
+            addTranscriptsToContent(originalEmail, contentBuilder);
+        }
         
         textPart.setText(contentBuilder.toString());
         multipart.addBodyPart(textPart);
@@ -89,13 +111,116 @@ public class EmailForwardingService {
                 addAttachmentToMessage(attachment, multipart);
             }
         }
+        addFullBodyIfTruncated(originalEmail, multipart);
 
         forwardedMessage.setContent(multipart);
+        forwardedMessage.saveChanges();
+        pipelineMetrics.stop(buildSample, PipelineMetrics.MIME_BUILD, true);
+        if (buildEvent.shouldCommit()) {
+            buildEvent.messageId = originalEmail.getMessageId();
+            buildEvent.attachments = originalEmail.getAttachments() != null ? originalEmail.getAttachments().size() : 0;
+            buildEvent.transcriptsToFollow = transcriptsToFollow;
+            buildEvent.commit();
+        }
+        return forwardedMessage;
+    }
+
+    /**
+     * Sends the transcripts of an email that was forwarded ahead of them, as a reply
+     * threaded under the forwarded message. The follow-up's Message-ID is derived from
+     * the forwarded one, so a resend after a crash is recognised as the same message.
+     */
+    public void sendTranscriptFollowUp(EmailMessage originalEmail, String forwardedMessageId) throws MessagingException {
+        MimeMessage followUp = buildTranscriptFollowUp(originalEmail, forwardedMessageId);
+
+        send(followUp);
+
+        logger.info("Sent transcript follow-up {} in reply to {}", followUp.getMessageID(), forwardedMessageId);
+    }
+
+    /**
+     * Assembles the transcript follow-up of an email, ready to send. Package-private
+     * so the Maildir delivery sink can drop it without going through SMTP.
+     */
+    MimeMessage buildTranscriptFollowUp(EmailMessage originalEmail, String forwardedMessageId) throws MessagingException {
+        String followUpMessageId = followUpMessageId(forwardedMessageId);
+
+        MimeMessage followUp = new MimeMessage(createSession()) {
+            @Override
+            protected void updateMessageID() throws MessagingException {
+                setHeader("Message-ID", followUpMessageId);
+            }
+        };
+        followUp.setFrom(new InternetAddress(properties.getSmtp().getUsername()));
+        followUp.setRecipients(Message.RecipientType.TO,
+            InternetAddress.parse(properties.getSmtp().getToAddress()));
+        followUp.setSubject("Re: " + forwardedSubject(originalEmail));
+        followUp.setHeader("In-Reply-To", forwardedMessageId);
+        followUp.setHeader("References", forwardedMessageId);
+
+        StringBuilder contentBuilder = new StringBuilder();
+        contentBuilder.append("Transcripts for the forwarded message from ").append(originalEmail.getFrom());
+        contentBuilder.append(" (").append(originalEmail.getSubject()).append(")");
+        addTranscriptsToContent(originalEmail, contentBuilder);
+        followUp.setText(contentBuilder.toString());
+        followUp.saveChanges();
+        return followUp;
+    }
+
+    private void send(MimeMessage message) throws MessagingException {
+        Timer.Sample sample = pipelineMetrics.start();
+        FlightEvents.SmtpSend event = new FlightEvents.SmtpSend();
+        event.begin();
+        boolean sent = false;
+        try {
+            Transport.send(message);
+            sent = true;
+        } finally {
+            pipelineMetrics.stop(sample, PipelineMetrics.SMTP_SEND, sent);
+            if (event.shouldCommit()) {
+                event.messageId = message.getMessageID();
+                event.success = sent;
+                event.commit();
+            }
+        }
+    }
+
+    public boolean hasTranscripts(EmailMessage email) {
+        return email.getAttachments() != null && email.getAttachments().stream()
+            .anyMatch(attachment -> attachment.isAudioVideo() && attachment.getTranscript() != null);
+    }
+
+    private String forwardedSubject(EmailMessage originalEmail) {
+        return "Fwd: " + (originalEmail.getSubject() != null ? originalEmail.getSubject() : "");
+    }
+
+    private String followUpMessageId(String forwardedMessageId) {
+        String id = forwardedMessageId.trim();
+        if (id.startsWith("<") && id.endsWith(">")) {
+            id = id.substring(1, id.length() - 1);
+        }
+        return "<transcripts." + id + ">";
+    }
+
+    private Session createSession() {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", properties.getSmtp().getHost());
+        props.put("mail.smtp.port", properties.getSmtp().getPort());
+        props.put("mail.smtp.auth", "true");
         
-        // Send the message
-        Transport.send(forwardedMessage);
-        
-        logger.info("Successfully forwarded email with subject: {}", forwardedSubject);
+        if (properties.getSmtp().isStarttlsEnabled()) {
+            props.put("mail.smtp.starttls.enable", "true");
+        }
+
+        return Session.getInstance(props, new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication(
+                    properties.getSmtp().getUsername(),
+                    properties.getSmtp().getPassword()
+                );
+            }
+        });
     }
 
     private void preserveHeaders(EmailMessage originalEmail, MimeMessage forwardedMessage) throws MessagingException {
@@ -153,6 +278,26 @@ public class EmailForwardingService {
         }
     }
 
+    /**
+     * The body text was cut at max-chars; attach the complete body part, streamed from
+     * the spool file while the message is written out rather than loaded here.
+     */
+    private void addFullBodyIfTruncated(EmailMessage originalEmail, Multipart multipart) throws MessagingException {
+        String partPath = originalEmail.getTruncatedBodyPart();
+        if (partPath == null || originalEmail.getSpoolPath() == null
+                || !properties.getProcessing().getBody().isAttachFullBody()) {
+            return;
+        }
+        String filename = "text/html".equals(originalEmail.getContentType()) ? "original-body.html" : "original-body.txt";
+        MimeBodyPart fullBody = new MimeBodyPart();
+        fullBody.setDataHandler(new DataHandler(new SpooledPartDataSource(originalEmail.getSpoolPath(), partPath, filename)));
+        fullBody.setFileName(filename);
+        fullBody.setDisposition(Part.ATTACHMENT);
+        // Set up front, otherwise choosing an encoding reads the whole part once more
+        fullBody.setHeader("Content-Transfer-Encoding", "base64");
+        multipart.addBodyPart(fullBody);
+    }
+
     private void addAttachmentToMessage(EmailAttachment attachment, Multipart multipart) throws MessagingException {
         MimeBodyPart attachmentPart = new MimeBodyPart();
         
@@ -200,4 +345,71 @@ public class EmailForwardingService {
             return name;
         }
     }
-}
\ No newline at end of file
+
+    // One part of a spooled message, addressed by its position in the MIME tree (e.g. "0.1");
+    // the spool file is opened on each read and only that part's bytes are streamed
+    private static class SpooledPartDataSource implements DataSource {
+        private final String spoolPath;
+        private final String partPath;
+        private final String name;
+
+        public SpooledPartDataSource(String spoolPath, String partPath, String name) {
+            this.spoolPath = spoolPath;
+            this.partPath = partPath;
+            this.name = name;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            SharedFileInputStream file = new SharedFileInputStream(spoolPath);
+            try {
+                InputStream content = locate(file).getInputStream();
+                return new FilterInputStream(content) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            file.close();
+                        }
+                    }
+                };
+            } catch (MessagingException | RuntimeException e) {
+                file.close();
+                throw new IOException("Unable to read part " + partPath + " of " + spoolPath, e);
+            } catch (IOException e) {
+                file.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public String getContentType() {
+            try (SharedFileInputStream file = new SharedFileInputStream(spoolPath)) {
+                return locate(file).getContentType();
+            } catch (MessagingException | IOException e) {
+                return "application/octet-stream";
+            }
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException("Spooled parts are read-only");
+        }
+
+        private Part locate(SharedFileInputStream file) throws MessagingException, IOException {
+            Part part = new MimeMessage((Session) null, file);
+            if (!partPath.isEmpty()) {
+                for (String index : partPath.split("\\.")) {
+                    part = ((Multipart) part.getContent()).getBodyPart(Integer.parseInt(index));
+                }
+            }
+            return part;
+        }
+    }
+}
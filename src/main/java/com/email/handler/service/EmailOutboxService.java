@@ -0,0 +1,240 @@
+package com.email.handler.service;
+
+import com.email.handler.model.EmailAttachment;
+import com.email.handler.model.EmailMessage;
+import com.email.handler.model.ProcessedEmail;
+import com.email.handler.repository.ProcessedEmailRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Durable work outbox on top of the processed_emails table. Every accepted email
+ * keeps a reference to its spooled raw MIME (and its IMAP UID) plus the results
+ * of the stages it already completed, so a retry can resume where it failed.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    @Autowired
+    private ProcessedEmailRepository processedEmailRepository;
+
+    @Autowired
+    private EmailSpoolService emailSpoolService;
+
+    @Autowired
+    private ImapEmailService imapEmailService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Records where the raw message and its IMAP copy are. Throws if it can't, since
+     * an email without this reference could never be retried.
+     */
+    public void recordReceived(EmailMessage email) {
+        ProcessedEmail processedEmail = processedEmailRepository.findByMessageId(email.getMessageId())
+            .orElse(new ProcessedEmail(email.getMessageId(), ProcessedEmail.ProcessingStatus.RECEIVED));
+
+        if (processedEmail.getCompletedStage() == null) {
+            processedEmail.setCompletedStage(ProcessedEmail.ProcessingStatus.RECEIVED);
+        }
+        processedEmail.setFolder(email.getFolder());
+        processedEmail.setUidValidity(email.getUidValidity());
+        processedEmail.setUid(email.getUid());
+        processedEmail.setSpoolPath(email.getSpoolPath());
+
+        processedEmailRepository.save(processedEmail);
+    }
+
+    /**
+     * Stores the transcripts so a retry never converts the attachments again. Throws
+     * if it can't, so the email is not forwarded on the strength of an unsaved result.
+     */
+    public void recordTranscripts(EmailMessage email) {
+        if (email.getAttachments() == null) {
+            return;
+        }
+
+        Map<String, String> transcripts = new LinkedHashMap<>();
+        for (EmailAttachment attachment : email.getAttachments()) {
+            if (attachment.isAudioVideo() && attachment.getTranscript() != null) {
+                transcripts.put(attachment.getFilename(), attachment.getTranscript());
+            }
+        }
+
+        ProcessedEmail processedEmail = processedEmailRepository.findByMessageId(email.getMessageId())
+            .orElse(new ProcessedEmail(email.getMessageId(), ProcessedEmail.ProcessingStatus.PROCESSING));
+        try {
+            processedEmail.setTranscripts(objectMapper.writeValueAsString(transcripts));
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to serialize transcripts of " + email.getMessageId(), e);
+        }
+        processedEmailRepository.save(processedEmail);
+    }
+
+    /**
+     * Records that the original went out ahead of its transcripts; the follow-up is now owed.
+     */
+    public void recordForwarded(EmailMessage email) {
+        ProcessedEmail processedEmail = processedEmailRepository.findByMessageId(email.getMessageId())
+            .orElse(new ProcessedEmail(email.getMessageId(), ProcessedEmail.ProcessingStatus.PROCESSING));
+        processedEmail.setForwardedMessageId(email.getForwardedMessageId());
+        processedEmail.setFollowUpState(ProcessedEmail.FollowUpState.PENDING);
+        processedEmail.setDeliveries(writeDeliveries(email));
+        processedEmailRepository.save(processedEmail);
+    }
+
+    /**
+     * Records the forwarded original of a failed email unless that is already on file,
+     * leaving the follow-up state of an earlier record alone.
+     */
+    public void recordForwardedIfMissing(EmailMessage email) {
+        ProcessedEmail processedEmail = processedEmailRepository.findByMessageId(email.getMessageId()).orElse(null);
+        if (processedEmail == null || processedEmail.getForwardedMessageId() == null) {
+            recordForwarded(email);
+        }
+    }
+
+    /**
+     * Records which delivery sinks an email already reached, so the retry of a partly
+     * failed delivery skips them.
+     */
+    public void recordDeliveries(EmailMessage email) {
+        if (email.getDeliveries().isEmpty()) {
+            return;
+        }
+        processedEmailRepository.findByMessageId(email.getMessageId()).ifPresent(processedEmail -> {
+            processedEmail.setDeliveries(writeDeliveries(email));
+            processedEmailRepository.save(processedEmail);
+        });
+    }
+
+    /**
+     * Claims the transcript follow-up of an email. Returns false if it was already
+     * sent or another attempt is sending it, in which case it must not be sent again.
+     */
+    public boolean claimFollowUp(EmailMessage email) {
+        return processedEmailRepository.transitionFollowUp(email.getMessageId(),
+            ProcessedEmail.FollowUpState.PENDING, ProcessedEmail.FollowUpState.SENDING) == 1;
+    }
+
+    public void completeFollowUp(EmailMessage email) {
+        processedEmailRepository.transitionFollowUp(email.getMessageId(),
+            ProcessedEmail.FollowUpState.SENDING, ProcessedEmail.FollowUpState.SENT);
+    }
+
+    // The send definitely failed, so the next attempt may claim it again
+    public void abandonFollowUp(EmailMessage email) {
+        processedEmailRepository.transitionFollowUp(email.getMessageId(),
+            ProcessedEmail.FollowUpState.SENDING, ProcessedEmail.FollowUpState.PENDING);
+    }
+
+    /**
+     * Rebuilds the email for a retry from the spool (or, if the spool file is gone,
+     * from the IMAP server) and re-applies the transcripts produced by earlier attempts.
+     */
+    public EmailMessage restore(ProcessedEmail processedEmail) throws Exception {
+        EmailMessage email;
+        if (emailSpoolService.exists(processedEmail.getSpoolPath())) {
+            email = imapEmailService.parseSpooledMessage(processedEmail.getSpoolPath());
+        } else if (processedEmail.getUid() != null && processedEmail.getUidValidity() != null) {
+            logger.warn("Spool file for message {} is missing, re-fetching UID {} from {}",
+                processedEmail.getMessageId(), processedEmail.getUid(), processedEmail.getFolder());
+            email = imapEmailService.fetchByUid(
+                processedEmail.getFolder(), processedEmail.getUidValidity(), processedEmail.getUid());
+            processedEmail.setSpoolPath(email.getSpoolPath());
+            processedEmailRepository.save(processedEmail);
+        } else {
+            throw new IllegalStateException("No spooled copy or IMAP reference for message " + processedEmail.getMessageId());
+        }
+
+        email.setMessageId(processedEmail.getMessageId());
+        email.setFolder(processedEmail.getFolder());
+        email.setUidValidity(processedEmail.getUidValidity());
+        email.setUid(processedEmail.getUid());
+        email.setForwardedMessageId(processedEmail.getForwardedMessageId());
+        if (processedEmail.getDeliveries() != null) {
+            email.setDeliveries(objectMapper.readValue(
+                processedEmail.getDeliveries(), new TypeReference<Map<String, String>>() {}));
+        }
+        restoreTranscripts(email, processedEmail);
+        return email;
+    }
+
+    public void release(EmailMessage email) {
+        emailSpoolService.delete(email.getSpoolPath());
+        try {
+            processedEmailRepository.findByMessageId(email.getMessageId()).ifPresent(processedEmail -> {
+                processedEmail.setSpoolPath(null);
+                processedEmail.setNextRetryAt(null);
+                processedEmailRepository.save(processedEmail);
+            });
+        } catch (Exception e) {
+            logger.error("Error releasing outbox entry for message {}: {}", email.getMessageId(), e.getMessage(), e);
+        }
+    }
+
+    // Anything that was still in flight when the application stopped was lost with the
+    // executor queue; hand it to the retry job, which will resume from the completed stage
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedEmails() {
+        int interrupted = processedEmailRepository.markInterrupted(
+            EnumSet.of(
+                ProcessedEmail.ProcessingStatus.RECEIVED,
+                ProcessedEmail.ProcessingStatus.PROCESSING,
+                ProcessedEmail.ProcessingStatus.CONVERTED
+            ),
+            ProcessedEmail.ProcessingStatus.FAILED,
+            "Interrupted by application shutdown"
+        );
+        if (interrupted > 0) {
+            logger.info("Queued {} interrupted emails for recovery", interrupted);
+        }
+        
+        // A follow-up caught mid-send may or may not have gone out. It is sent again with
+        // the same Message-ID, so mail clients collapse the rare duplicate.
+        int unconfirmed = processedEmailRepository.resetFollowUps(
+            ProcessedEmail.FollowUpState.SENDING, ProcessedEmail.FollowUpState.PENDING);
+        if (unconfirmed > 0) {
+            logger.warn("{} transcript follow-ups were interrupted mid-send and will be resent", unconfirmed);
+        }
+    }
+
+    private String writeDeliveries(EmailMessage email) {
+        if (email.getDeliveries().isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(email.getDeliveries());
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to serialize deliveries of " + email.getMessageId(), e);
+        }
+    }
+
+    private void restoreTranscripts(EmailMessage email, ProcessedEmail processedEmail) throws Exception {
+        if (processedEmail.getTranscripts() == null || email.getAttachments() == null) {
+            return;
+        }
+
+        Map<String, String> transcripts = objectMapper.readValue(
+            processedEmail.getTranscripts(), new TypeReference<Map<String, String>>() {});
+        for (EmailAttachment attachment : email.getAttachments()) {
+            String transcript = transcripts.get(attachment.getFilename());
+            if (transcript != null) {
+                attachment.setAudioVideo(true);
+                attachment.setTranscript(transcript);
+            }
+        }
+    }
+}
@@ -2,16 +2,40 @@ package com.email.handler.service;
 
 import com.email.handler.config.EmailHandlerProperties;
 import com.email.handler.model.EmailMessage;
+import com.email.handler.model.FetchResult;
 import com.email.handler.model.ProcessedEmail;
+import com.email.handler.pipeline.AdaptivePollController;
+import com.email.handler.pipeline.DeliveryHandoff;
+import com.email.handler.pipeline.DispatchCycle;
+import com.email.handler.pipeline.DownstreamLimiter;
+import com.email.handler.pipeline.EmailDispatcher;
+import com.email.handler.pipeline.KeyedSequencer;
+import com.email.handler.pipeline.Lane;
+import com.email.handler.pipeline.PipelineMetrics;
+import com.email.handler.pipeline.PipelineStage;
+import com.email.handler.repository.ProcessedEmailRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.email.handler.pipeline.DownstreamLimiter.Downstream.CONVERSION;
+import static com.email.handler.pipeline.DownstreamLimiter.Downstream.DATABASE;
+import static com.email.handler.pipeline.DownstreamLimiter.Downstream.IMAP;
 
 @Service
 public class EmailProcessingService {
@@ -30,123 +54,667 @@ public class EmailProcessingService {
     @Autowired
     private EmailForwardingService emailForwardingService;
 
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private ProcessedEmailRepository processedEmailRepository;
+
     @Autowired
     private EmailHandlerProperties properties;
 
-    @Scheduled(fixedDelayString = "#{emailHandlerProperties.imap.fetchInterval}")
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private DownstreamLimiter downstreamLimiter;
+
+    @Autowired
+    private AdaptivePollController pollController;
+
+    @Autowired
+    private KeyedSequencer keyedSequencer;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private StageTimingService stageTimingService;
+
+    @Autowired
+    @Qualifier("dedupStage")
+    private PipelineStage dedupStage;
+
+    @Autowired
+    @Qualifier("conversionStage")
+    private PipelineStage conversionStage;
+
+    @Autowired
+    @Qualifier("forwardingStage")
+    private PipelineStage forwardingStage;
+
+    @Autowired
+    @Qualifier("statusStage")
+    private PipelineStage statusStage;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private DeliveryHandoff deliveryHandoff;
+
+    private final AtomicBoolean retryRunning = new AtomicBoolean();
+    private volatile long lastFetchMillis;
+    private volatile int lastFetchSize;
+
+    // Ticks at the shortest interval the poll controller may choose; it decides whether a poll is due
+    @Scheduled(fixedDelayString = "#{T(java.lang.Math).min(emailHandlerProperties.imap.fetchInterval, " +
+        "emailHandlerProperties.imap.adaptiveFetch.minInterval)}")
     public void processEmails() {
+        if (!pollController.isDue()) {
+            return;
+        }
         try {
             logger.debug("Starting email processing cycle");
             
-            List<EmailMessage> emails = imapEmailService.fetchEmails();
+            // Backpressure: only fetch as many emails as the pipeline can take right now
+            int capacity = Math.min(dedupStage.getRemainingCapacity(), emailDispatcher.getAvailableCapacity());
+            if (capacity == 0) {
+                logger.debug("Pipeline is saturated ({} in flight), skipping fetch: {}",
+                    emailDispatcher.getInFlightCount(), dedupStage);
+                pollController.onSaturated();
+                return;
+            }
+            int fetchLimit = Math.min(pollController.getBatchSize(), capacity);
+            
+            long fetchStart = System.currentTimeMillis();
+            LocalDateTime fetchedAt = LocalDateTime.now();
+            FetchResult result = downstreamLimiter.call(IMAP, () -> imapEmailService.fetchEmails(fetchLimit));
+            List<EmailMessage> emails = result.getEmails();
+            lastFetchMillis = System.currentTimeMillis() - fetchStart;
+            lastFetchSize = emails.size();
+            for (EmailMessage email : emails) {
+                email.setFetchedAt(fetchedAt);
+                stageTimingService.record(email, StageTimingService.FETCH, null, fetchedAt);
+            }
             
             if (emails.isEmpty()) {
                 logger.debug("No new emails found");
+                pollController.onPoll(0, result.getBacklog(), getPipelinePressure());
                 return;
             }
             
-            logger.info("Found {} new emails to process", emails.size());
+            logger.info("Found {} new emails to process (fetched in {} ms, {} more waiting on the server)",
+                emails.size(), lastFetchMillis, result.getBacklog());
             
-            for (EmailMessage email : emails) {
-                processEmailAsync(email);
+            Map<EmailMessage, CompletableFuture<Void>> admitted = new IdentityHashMap<>();
+            DispatchCycle cycle = dispatchEmails("poll", emails, admitted);
+            if (cycle.getDeferred() > 0) {
+                // Fetch again from the first email that was not admitted; admitted emails after it
+                // are fetched once more and dropped by the dedup claim
+                emails.stream().filter(email -> !admitted.containsKey(email)).findFirst().ifPresent(first ->
+                    imapEmailService.rewindCursor(first.getFolder(), first.getUidValidity(), first.getUid()));
             }
+            pollController.onPoll(emails.size(), result.getBacklog() + cycle.getDeferred(), getPipelinePressure());
             
         } catch (Exception e) {
             logger.error("Error during email processing cycle: {}", e.getMessage(), e);
+            pollController.onError();
         }
     }
 
-    @Async("emailProcessingExecutor")
-    public CompletableFuture<Void> processEmailAsync(EmailMessage email) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                processSingleEmail(email);
-            } catch (Exception e) {
-                logger.error("Error processing email {}: {}", email.getMessageId(), e.getMessage(), e);
-                duplicatePreventionService.updateProcessingStatus(
-                    email.getMessageId(),
-                    ProcessedEmail.ProcessingStatus.FAILED,
-                    e.getMessage()
-                );
+    /**
+     * Fill ratio of the fullest pipeline resource: the in-flight limit or any stage queue.
+     */
+    private double getPipelinePressure() {
+        double pressure = (double) emailDispatcher.getInFlightCount() / properties.getProcessing().getMaxInFlight();
+        for (PipelineStage stage : getStages()) {
+            pressure = Math.max(pressure, (double) stage.getQueueDepth() / stage.getQueueCapacity());
+        }
+        return pressure;
+    }
+
+    /**
+     * Dispatches a batch from one source. Ordering tickets are taken in the order of the
+     * list, before the dispatcher regroups the emails by lane. Every admitted email is put
+     * into {@code admitted} with its completion; the others were deferred.
+     */
+    public DispatchCycle dispatchEmails(String source, List<EmailMessage> emails,
+                                        Map<EmailMessage, CompletableFuture<Void>> admitted) {
+        Map<EmailMessage, KeyedSequencer.Ticket> tickets = takeTickets(emails);
+        DispatchCycle cycle = emailDispatcher.dispatch(source, emails, this::laneOf, email -> {
+            CompletableFuture<Void> completion = submitEmail(email, tickets.get(email));
+            admitted.put(email, completion);
+            return completion;
+        });
+        tickets.forEach((email, ticket) -> {
+            if (!admitted.containsKey(email)) {
+                ticket.release();
             }
         });
+        return cycle;
     }
 
-    private void processSingleEmail(EmailMessage email) {
-        String messageId = email.getMessageId();
-        
-        logger.info("Processing email: {}", messageId);
-        
-        // Check for duplicates
-        if (duplicatePreventionService.isAlreadyProcessed(messageId)) {
-            logger.info("Email {} already processed, skipping", messageId);
-            return;
+    /**
+     * Hands an email to the pipeline, blocking while the dedup stage is full.
+     * The returned future completes once the email has reached a final status.
+     */
+    public CompletableFuture<Void> submitEmail(EmailMessage email) {
+        return submitEmail(email, null);
+    }
+
+    private CompletableFuture<Void> submitEmail(EmailMessage email, KeyedSequencer.Ticket ticket) {
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        if (ticket != null) {
+            // Whatever happens to the email, its successors must not wait forever
+            completion.whenComplete((result, error) -> ticket.release());
         }
+        dedupStage.execute(laneOf(email), () -> dedupStep(email, ticket, completion));
+        return completion;
+    }
+
+    private Map<EmailMessage, KeyedSequencer.Ticket> takeTickets(List<EmailMessage> emails) {
+        Map<EmailMessage, KeyedSequencer.Ticket> tickets = new IdentityHashMap<>();
+        EmailHandlerProperties.OrderingMode ordering = properties.getProcessing().getOrdering();
+        if (ordering == EmailHandlerProperties.OrderingMode.NONE) {
+            return tickets;
+        }
+        for (EmailMessage email : emails) {
+            String key = orderingKey(email, ordering);
+            if (key != null) {
+                tickets.put(email, keyedSequencer.enter(key));
+            }
+        }
+        return tickets;
+    }
+
+    /**
+     * The conversation an email belongs to: the root of its References chain, else the
+     * message it replies to, else its own Message-ID (it starts a thread). SENDER orders
+     * everything from one address instead.
+     */
+    private String orderingKey(EmailMessage email, EmailHandlerProperties.OrderingMode ordering) {
+        if (ordering == EmailHandlerProperties.OrderingMode.SENDER) {
+            return email.getFrom() != null ? email.getFrom().toLowerCase() : null;
+        }
+        String references = header(email, "References");
+        if (references != null && !references.isBlank()) {
+            return references.trim().split("\\s+")[0];
+        }
+        String inReplyTo = header(email, "In-Reply-To");
+        if (inReplyTo != null && !inReplyTo.isBlank()) {
+            return inReplyTo.trim();
+        }
+        return email.getMessageId();
+    }
+
+    private String header(EmailMessage email, String name) {
+        if (email.getHeaders() == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> header : email.getHeaders().entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Forwards in conversation order: the forwarding step is only queued once the
+     * previous email of the same conversation has been forwarded or has finished.
+     */
+    private void forwardInTurn(KeyedSequencer.Ticket ticket, Lane lane, Runnable step) {
+        if (ticket == null) {
+            forwardingStage.execute(lane, step);
+        } else {
+            ticket.runInTurn(() -> forwardingStage.execute(lane, step));
+        }
+    }
+
+    private void releaseTurn(KeyedSequencer.Ticket ticket) {
+        if (ticket != null) {
+            ticket.release();
+        }
+    }
+
+    /**
+     * Text-only mail goes to the EXPRESS lane, mail that needs conversion to the MEDIA lane.
+     */
+    private Lane laneOf(EmailMessage email) {
+        boolean hasAudioVideo = email.getAttachments() != null &&
+            audioVideoProcessingService.hasAudioVideoAttachments(email.getAttachments());
+        return hasAudioVideo ? Lane.MEDIA : Lane.EXPRESS;
+    }
+
+    private void dedupStep(EmailMessage email, KeyedSequencer.Ticket ticket, CompletableFuture<Void> completion) {
+        String messageId = email.getMessageId();
+        LocalDateTime startedAt = LocalDateTime.now();
         
         try {
-            // Mark as received
-            duplicatePreventionService.markAsProcessed(messageId, ProcessedEmail.ProcessingStatus.RECEIVED);
-            
-            // Update status to processing
-            duplicatePreventionService.updateProcessingStatus(
-                messageId,
-                ProcessedEmail.ProcessingStatus.PROCESSING,
-                null
-            );
+            logger.info("Processing email: {}", messageId);
             
-            // Check if email has audio/video attachments
-            boolean hasAudioVideo = email.getAttachments() != null && 
-                audioVideoProcessingService.hasAudioVideoAttachments(email.getAttachments());
+            // Check for duplicates
+            if (downstreamLimiter.call(DATABASE, () -> pipelineMetrics.record(PipelineMetrics.DEDUP_LOOKUP,
+                    () -> duplicatePreventionService.isAlreadyProcessed(messageId)))) {
+                logger.info("Email {} already processed, skipping", messageId);
+                completion.complete(null);
+                return;
+            }
             
-            if (hasAudioVideo) {
-                logger.info("Email {} contains audio/video attachments, processing conversions", messageId);
-                
-                // Process audio/video attachments
-                audioVideoProcessingService.processAttachments(email.getAttachments());
+            boolean claimed = downstreamLimiter.call(DATABASE, () -> {
+                // Mark as received; only one of two copies fetched at the same time gets the row
+                if (!duplicatePreventionService.markAsProcessed(messageId, ProcessedEmail.ProcessingStatus.RECEIVED)) {
+                    return false;
+                }
+                emailOutboxService.recordReceived(email);
                 
-                // Update status to converted
+                // Update status to processing
                 duplicatePreventionService.updateProcessingStatus(
                     messageId,
-                    ProcessedEmail.ProcessingStatus.CONVERTED,
+                    ProcessedEmail.ProcessingStatus.PROCESSING,
                     null
                 );
+                return true;
+            });
+            if (!claimed) {
+                logger.info("Email {} is already being processed, skipping", messageId);
+                completion.complete(null);
+                return;
+            }
+            stageTimingService.record(email, StageTimingService.DEDUP, null, startedAt);
+            
+            routeEmail(email, null, ticket, completion);
+            
+        } catch (Exception e) {
+            fail(email, e, completion);
+        }
+    }
+
+    /**
+     * Sends an email to the next stage it still needs. When an outbox entry from an
+     * earlier attempt is given, stages it already completed are skipped.
+     */
+    private void routeEmail(EmailMessage email, ProcessedEmail previousAttempt, KeyedSequencer.Ticket ticket,
+                            CompletableFuture<Void> completion) {
+        String messageId = email.getMessageId();
+        
+        if (previousAttempt != null && previousAttempt.hasCompleted(ProcessedEmail.ProcessingStatus.FORWARDED)) {
+            logger.info("Email {} was already forwarded, completing outbox entry", messageId);
+            statusStage.execute(laneOf(email), () -> forwardedStep(email, completion));
+            return;
+        }
+        
+        // Check if email has audio/video attachments
+        boolean hasAudioVideo = email.getAttachments() != null && 
+            audioVideoProcessingService.hasAudioVideoAttachments(email.getAttachments());
+        boolean alreadyConverted = previousAttempt != null &&
+            previousAttempt.hasCompleted(ProcessedEmail.ProcessingStatus.CONVERTED);
+        
+        // Forward-first: the original goes out before its attachments are converted
+        if (hasAudioVideo && email.getForwardedMessageId() == null &&
+                properties.getProcessing().getDeliveryMode() == EmailHandlerProperties.DeliveryMode.FORWARD_FIRST) {
+            logger.info("Email {} contains audio/video attachments, forwarding ahead of transcripts", messageId);
+            forwardInTurn(ticket, Lane.EXPRESS, () -> forwardOriginalStep(email, alreadyConverted, ticket, completion));
+            return;
+        }
+        
+        if (hasAudioVideo && !alreadyConverted) {
+            logger.info("Email {} contains audio/video attachments, processing conversions", messageId);
+            conversionStage.execute(Lane.MEDIA, () -> conversionStep(email, ticket, completion));
+        } else {
+            if (hasAudioVideo) {
+                logger.info("Email {} was already converted, resuming at forwarding", messageId);
             } else {
                 logger.info("Email {} contains no audio/video attachments, skipping conversion", messageId);
             }
+            forwardInTurn(ticket, laneOf(email), () -> forwardingStep(email, CompletableFuture.completedFuture(null), ticket, completion));
+        }
+    }
+
+    private void conversionStep(EmailMessage email, KeyedSequencer.Ticket ticket, CompletableFuture<Void> completion) {
+        try {
+            // Process audio/video attachments
+            downstreamLimiter.run(CONVERSION, () ->
+                audioVideoProcessingService.processAttachments(email.getMessageId(), email.getAttachments()));
             
-            // Forward the email
-            emailForwardingService.forwardEmail(email);
+            // Update status to converted
+            CompletableFuture<Void> converted = statusStage.submit(Lane.MEDIA, () -> {
+                downstreamLimiter.run(DATABASE, () -> {
+                    emailOutboxService.recordTranscripts(email);
+                    duplicatePreventionService.updateProcessingStatus(
+                        email.getMessageId(),
+                        ProcessedEmail.ProcessingStatus.CONVERTED,
+                        null
+                    );
+                });
+                return null;
+            });
             
-            // Mark as successfully forwarded
-            duplicatePreventionService.updateProcessingStatus(
-                messageId,
-                ProcessedEmail.ProcessingStatus.FORWARDED,
-                null
-            );
+            forwardInTurn(ticket, Lane.MEDIA, () -> forwardingStep(email, converted, ticket, completion));
             
-            logger.info("Successfully processed and forwarded email: {}", messageId);
+        } catch (Exception e) {
+            fail(email, e, completion);
+        }
+    }
+
+    private void forwardOriginalStep(EmailMessage email, boolean alreadyConverted, KeyedSequencer.Ticket ticket,
+                                     CompletableFuture<Void> completion) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        afterDelivery(deliveryService.deliver(email, true), Lane.EXPRESS, email, completion, (deliveredId, error) -> {
+            if (error != null) {
+                throw error;
+            }
+            email.setForwardedMessageId(deliveredId);
+            releaseTurn(ticket);
+            stageTimingService.record(email, StageTimingService.FORWARDING, null, startedAt);
+            
+            // The follow-up is owed from here on; record it before converting so a
+            // retry never forwards the original a second time. Chained rather than
+            // joined, so forwarding workers never wait for the status stage.
+            statusStage.submit(Lane.EXPRESS, () -> {
+                downstreamLimiter.run(DATABASE, () -> emailOutboxService.recordForwarded(email));
+                return null;
+            }).thenRunAsync(() -> {
+                // Off the status worker, which must not block on a full stage queue
+                if (alreadyConverted) {
+                    forwardingStage.execute(Lane.MEDIA, () -> forwardingStep(email, CompletableFuture.completedFuture(null), null, completion));
+                } else {
+                    conversionStage.execute(Lane.MEDIA, () -> conversionStep(email, null, completion));
+                }
+            }, deliveryHandoff::execute).exceptionally(recordError -> {
+                fail(email, unwrap(recordError), completion);
+                return null;
+            });
+        });
+    }
+
+    private void forwardingStep(EmailMessage email, CompletableFuture<Void> converted, KeyedSequencer.Ticket ticket,
+                                CompletableFuture<Void> completion) {
+        try {
+            // Transcripts must be durable before the email leaves, so a crash after
+            // forwarding never causes the attachments to be converted again
+            converted.join();
+            
+            LocalDateTime startedAt = LocalDateTime.now();
+            if (email.getForwardedMessageId() != null) {
+                sendFollowUp(email, startedAt, completion);
+            } else {
+                // Forward the email
+                afterDelivery(deliveryService.deliver(email, false), laneOf(email), email, completion, (deliveredId, error) -> {
+                    if (error != null) {
+                        throw error;
+                    }
+                    releaseTurn(ticket);
+                    stageTimingService.record(email, StageTimingService.FORWARDING, null, startedAt);
+                    statusStage.execute(laneOf(email), () -> forwardedStep(email, completion));
+                });
+            }
             
         } catch (Exception e) {
-            logger.error("Failed to process email {}: {}", messageId, e.getMessage(), e);
+            fail(email, e, completion);
+        }
+    }
+
+    private void sendFollowUp(EmailMessage email, LocalDateTime startedAt, CompletableFuture<Void> completion) throws Exception {
+        if (!downstreamLimiter.call(DATABASE, () -> emailOutboxService.claimFollowUp(email))) {
+            logger.info("Transcript follow-up for email {} was already sent", email.getMessageId());
+            statusStage.execute(laneOf(email), () -> forwardedStep(email, completion));
+            return;
+        }
+        CompletableFuture<Void> sent = emailForwardingService.hasTranscripts(email)
+            ? deliveryService.deliverFollowUp(email) : CompletableFuture.completedFuture(null);
+        afterDelivery(sent, laneOf(email), email, completion, (result, error) -> {
+            if (error != null) {
+                downstreamLimiter.run(DATABASE, () -> emailOutboxService.abandonFollowUp(email));
+                throw error;
+            }
+            downstreamLimiter.run(DATABASE, () -> emailOutboxService.completeFollowUp(email));
+            stageTimingService.record(email, StageTimingService.FOLLOW_UP, null, startedAt);
+            statusStage.execute(laneOf(email), () -> forwardedStep(email, completion));
+        });
+    }
+
+    /**
+     * Continues once a delivery has completed: right away when every sink delivered on
+     * this thread (SMTP, Maildir), otherwise back on the forwarding stage, so a sink's
+     * own threads never run pipeline work. The hand-off itself runs on a virtual thread,
+     * so a full forwarding queue holds up that thread rather than the sink's sender.
+     * Exceptions thrown by the continuation fail the email.
+     */
+    private <T> void afterDelivery(CompletableFuture<T> delivery, Lane lane, EmailMessage email,
+                                   CompletableFuture<Void> completion, DeliveryContinuation<T> continuation) {
+        CompletableFuture<T> resumed = delivery.isDone() ? delivery
+            : delivery.whenCompleteAsync((result, error) -> {}, command -> deliveryHandoff.execute(() -> {
+                try {
+                    forwardingStage.execute(lane, command);
+                } catch (RejectedExecutionException rejected) {
+                    // Shutting down; settle the email here so its completion is not lost
+                    command.run();
+                }
+            }));
+        resumed.whenComplete((result, error) -> {
+            try {
+                continuation.resume(result, error != null ? unwrap(error) : null);
+            } catch (Exception e) {
+                fail(email, e, completion);
+            }
+        });
+    }
+
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof Exception exception ? exception : new CompletionException(cause);
+    }
+
+    @FunctionalInterface
+    private interface DeliveryContinuation<T> {
+        // Called with the delivery's result, or with the exception it failed with
+        void resume(T result, Exception error) throws Exception;
+    }
+
+    private void forwardedStep(EmailMessage email, CompletableFuture<Void> completion) {
+        try {
+            downstreamLimiter.run(DATABASE, () -> {
+                // Mark as successfully forwarded
+                duplicatePreventionService.updateProcessingStatus(
+                    email.getMessageId(),
+                    ProcessedEmail.ProcessingStatus.FORWARDED,
+                    null
+                );
+                emailOutboxService.release(email);
+            });
             
-            // Mark as failed
-            duplicatePreventionService.updateProcessingStatus(
-                messageId,
-                ProcessedEmail.ProcessingStatus.FAILED,
-                e.getMessage()
-            );
+            logger.info("Successfully processed and forwarded email: {}", email.getMessageId());
+            stageTimingService.recordTotal(email, ProcessedEmail.ProcessingStatus.FORWARDED.name());
+            completion.complete(null);
             
-            throw new RuntimeException("Email processing failed", e);
+        } catch (Exception e) {
+            completion.completeExceptionally(e);
+        }
+    }
+
+    private void fail(EmailMessage email, Exception e, CompletableFuture<Void> completion) {
+        String messageId = email.getMessageId();
+        logger.error("Failed to process email {}: {}", messageId, e.getMessage(), e);
+        stageTimingService.recordTotal(email, ProcessedEmail.ProcessingStatus.FAILED.name());
+        
+        try {
+            // Mark as failed
+            statusStage.execute(laneOf(email), () -> {
+                try {
+                    downstreamLimiter.run(DATABASE, () -> {
+                        String error = e.getMessage() != null ? e.getMessage() : e.toString();  // e.g. an NPE has no message
+                        if (email.getForwardedMessageId() != null) {
+                            try {
+                                // A second attempt at the write the forwarding step may have failed on;
+                                // without it the retry would send the original again
+                                emailOutboxService.recordForwardedIfMissing(email);
+                            } catch (Exception forwardedError) {
+                                logger.error("Unable to record that email {} was forwarded as {}, its retry may send it again: {}",
+                                    messageId, email.getForwardedMessageId(), forwardedError.getMessage());
+                                error += " (forwarded original not recorded)";
+                            }
+                        }
+                        try {
+                            // Sinks that did receive the email are skipped by the retry
+                            emailOutboxService.recordDeliveries(email);
+                        } catch (Exception deliveriesError) {
+                            // Still record the failure, or the email would sit in PROCESSING until a restart
+                            logger.error("Unable to record deliveries of email {}, its retry may reach {} again: {}",
+                                messageId, email.getDeliveries().keySet(), deliveriesError.getMessage());
+                            error += " (deliveries not recorded)";
+                        }
+                        duplicatePreventionService.updateProcessingStatus(
+                            messageId,
+                            ProcessedEmail.ProcessingStatus.FAILED,
+                            error
+                        );
+                    });
+                } catch (Exception statusError) {
+                    logger.error("Unable to record failure of email {}: {}", messageId, statusError.getMessage());
+                }
+                completion.completeExceptionally(e);
+            });
+        } catch (RejectedExecutionException rejected) {
+            // Shutting down; the outbox entry is picked up again on the next start
+            completion.completeExceptionally(e);
+        }
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void logPipelineStats() {
+        boolean busy = getStages().stream()
+            .anyMatch(stage -> stage.getQueueDepth() > 0 || stage.getActiveCount() > 0);
+        if (busy) {
+            logger.info("Pipeline stages: {}, {} emails in flight (express={}, media={}), active cycles: {}",
+                getStages(), emailDispatcher.getInFlightCount(), emailDispatcher.getInFlightCount(Lane.EXPRESS),
+                emailDispatcher.getInFlightCount(Lane.MEDIA), emailDispatcher.getActiveCycles());
+            logger.info("Lane latency: express[{}], media[{}]",
+                emailDispatcher.getLatency(Lane.EXPRESS), emailDispatcher.getLatency(Lane.MEDIA));
+            logger.info("Adaptive fetch: {}", pollController);
+            if (properties.getProcessing().getOrdering() != EmailHandlerProperties.OrderingMode.NONE) {
+                logger.info("Ordering: {} conversations in flight, {} forwards held back for an earlier email",
+                    keyedSequencer.getActiveKeys(), keyedSequencer.getDeferredCount());
+            }
+        } else {
+            logger.debug("Pipeline stages: {}", getStages());
         }
     }
 
+    public List<PipelineStage> getStages() {
+        return List.of(dedupStage, conversionStage, forwardingStage, statusStage);
+    }
+
+    public long getLastFetchMillis() { return lastFetchMillis; }
+
+    public int getLastFetchSize() { return lastFetchSize; }
+
     // Retry failed emails periodically
     @Scheduled(fixedRate = 300000) // Every 5 minutes
     public void retryFailedEmails() {
+        if (!retryRunning.compareAndSet(false, true)) {
+            logger.debug("Previous retry run is still in progress");
+            return;
+        }
         logger.debug("Checking for failed emails to retry");
+        retryBatch(0, 0);
+    }
+
+    /**
+     * Replays one batch of failed emails. The next batch is loaded once the whole batch,
+     * failed or not, has finished, so a large backlog of failures never floods the
+     * pipeline and no scheduler thread waits for the conversions in between.
+     */
+    private void retryBatch(long afterId, int retried) {
+        int batchSize = properties.getProcessing().getRetryBatchSize();
+        try {
+            List<ProcessedEmail> batch = processedEmailRepository.findByStatusAndRetryCountLessThan(
+                ProcessedEmail.ProcessingStatus.FAILED,
+                properties.getProcessing().getMaxRetryAttempts(),
+                afterId,
+                LocalDateTime.now(),
+                PageRequest.of(0, batchSize)
+            );
+            if (batch.isEmpty()) {
+                finishRetry(retried);
+                return;
+            }
+            
+            // Recovery work goes through the MEDIA lane so it never competes with fresh text-only mail
+            DispatchCycle cycle = emailDispatcher.dispatch("retry", batch, failedEmail -> Lane.MEDIA, this::retryEmail);
+            int retriedSoFar = retried + cycle.getAdmitted();
+            // When the pipeline is saturated the rest stays FAILED and is picked up by the next run
+            boolean more = cycle.getDeferred() == 0 && batch.size() == batchSize;
+            long lastId = batch.get(batch.size() - 1).getId();
+            
+            // Continued on a scheduler thread, not on the stage worker that finished the batch
+            cycle.getCompletion().whenComplete((result, error) -> taskScheduler.schedule(() -> {
+                if (more) {
+                    retryBatch(lastId, retriedSoFar);
+                } else {
+                    finishRetry(retriedSoFar);
+                }
+            }, Instant.now()));
+        } catch (Exception e) {
+            logger.error("Error retrying failed emails: {}", e.getMessage(), e);
+            finishRetry(retried);
+        }
+    }
+
+    private void finishRetry(int retried) {
+        retryRunning.set(false);
+        if (retried > 0) {
+            logger.info("Retried {} failed emails", retried);
+        }
+    }
+
+    /**
+     * Replays failed emails found by an admin query, like the retry job does, but
+     * regardless of their retry count and backoff. Returns the cycle; emails beyond
+     * the in-flight limit are deferred, as the last {@link DispatchCycle#getDeferred()}
+     * entries of the list.
+     */
+    public DispatchCycle replayEmails(List<ProcessedEmail> failedEmails) {
+        return emailDispatcher.dispatch("replay", failedEmails, failedEmail -> Lane.MEDIA, this::retryEmail);
+    }
+
+    private CompletableFuture<Void> retryEmail(ProcessedEmail failedEmail) {
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        dedupStage.execute(Lane.MEDIA, () -> retryStep(failedEmail, completion));
+        return completion;
+    }
+
+    private void retryStep(ProcessedEmail failedEmail, CompletableFuture<Void> completion) {
+        String messageId = failedEmail.getMessageId();
+        logger.info("Retrying email {} (attempt {}, completed stage {})",
+            messageId, failedEmail.getRetryCount() + 1, failedEmail.getCompletedStage());
         
-        // This would involve fetching failed emails from database and retrying
-        // Implementation depends on retry strategy requirements
-        // For now, just log that the check is happening
+        EmailMessage email = new EmailMessage();
+        email.setMessageId(messageId);
+        try {
+            // Claimed first, so an email picked up by both the retry job and an admin
+            // replay is only run once
+            if (downstreamLimiter.call(DATABASE, () -> processedEmailRepository.transitionStatus(failedEmail.getId(),
+                    ProcessedEmail.ProcessingStatus.FAILED, ProcessedEmail.ProcessingStatus.PROCESSING)) == 0) {
+                logger.info("Email {} is no longer failed, skipping retry", messageId);
+                completion.complete(null);
+                return;
+            }
+            failedEmail.setStatus(ProcessedEmail.ProcessingStatus.PROCESSING);
+            pipelineMetrics.recordTransition(ProcessedEmail.ProcessingStatus.FAILED, ProcessedEmail.ProcessingStatus.PROCESSING);
+            
+            email = emailOutboxService.restore(failedEmail);
+            // A retry is timed as a run of its own
+            email.setFetchedAt(LocalDateTime.now());
+            
+            routeEmail(email, failedEmail, null, completion);
+            
+        } catch (Exception e) {
+            fail(email, e, completion);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,121 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Keeps the raw MIME of every fetched message on local disk until it has been
+ * forwarded, so that retries and restarts never have to go back to the IMAP server.
+ */
+@Service
+public class EmailSpoolService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailSpoolService.class);
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    public Path spool(MimeMessage message, String messageId) throws MessagingException, IOException {
+        Path directory = getSpoolDirectory();
+        Path target = directory.resolve(fileNameFor(messageId));
+        if (Files.exists(target)) {
+            logger.debug("Message {} already spooled at {}", messageId, target);
+            return target;
+        }
+
+        // Write to a temporary file first so a crash never leaves a truncated spool entry behind
+        Path temp = Files.createTempFile(directory, "spool-", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            message.writeTo(out);
+        } catch (MessagingException | IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        logger.debug("Spooled message {} to {}", messageId, target);
+        return target;
+    }
+
+    /**
+     * Spools raw MIME that is already in memory or mapped from a local archive. The key
+     * names where it came from, so spooling the same message again reuses the file.
+     */
+    public Path spool(ByteBuffer content, String key) throws IOException {
+        Path directory = getSpoolDirectory();
+        Path target = directory.resolve(fileNameFor(key));
+        if (Files.exists(target)) {
+            logger.debug("Message {} already spooled at {}", key, target);
+            return target;
+        }
+
+        Path temp = Files.createTempFile(directory, "spool-", ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer source = content.duplicate();
+            while (source.hasRemaining()) {
+                out.write(source);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        logger.debug("Spooled message {} to {}", key, target);
+        return target;
+    }
+
+    public boolean exists(String spoolPath) {
+        return spoolPath != null && Files.exists(Paths.get(spoolPath));
+    }
+
+    public void delete(String spoolPath) {
+        if (spoolPath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(spoolPath));
+        } catch (IOException e) {
+            logger.warn("Unable to delete spool file {}: {}", spoolPath, e.getMessage());
+        }
+    }
+
+    private Path getSpoolDirectory() throws IOException {
+        Path directory = Paths.get(properties.getProcessing().getSpoolDirectory());
+        Files.createDirectories(directory);
+        return directory;
+    }
+
+    private String fileNameFor(String messageId) {
+        if (messageId == null) {
+            return UUID.randomUUID() + ".eml";
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(messageId.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash) + ".eml";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.email.handler.service;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dedup entries in a local MVStore file (the storage engine under H2), for
+ * single-node deployments without Redis. Lookups are in-memory map reads; writes
+ * are only committed and fsynced by {@link #sync()}, so one disk flush covers every
+ * entry of the interval. MVStore never overwrites committed data, so a crash loses
+ * at most the entries since the last sync and never corrupts the file.
+ */
+public class EmbeddedDedupStore implements DedupStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedDedupStore.class);
+    private static final int COMPACT_FILL_RATE = 50;
+    private static final int COMPACT_WRITE_LIMIT = 16 * 1024 * 1024;
+
+    private final MVStore store;
+    // Message-ID -> expiry in epoch milliseconds
+    private final MVMap<String, Long> entries;
+
+    public EmbeddedDedupStore(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.store = new MVStore.Builder()
+            .fileName(file.toString())
+            .autoCommitDisabled()
+            .open();
+        this.entries = store.openMap("processed");
+        logger.info("Opened embedded dedup store {} with {} entries", file, entries.size());
+    }
+
+    @Override
+    public boolean contains(String messageId) {
+        Long expiresAt = entries.get(messageId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    @Override
+    public void remember(String messageId, String status, Duration ttl) {
+        entries.put(messageId, System.currentTimeMillis() + ttl.toMillis());
+    }
+
+    @Override
+    public void sync() {
+        if (store.hasUnsavedChanges()) {
+            store.commit();
+            store.sync();
+        }
+    }
+
+    @Override
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        List<String> expired = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
+            if (entry.getValue() <= now) {
+                expired.add(entry.getKey());
+            }
+        }
+        expired.forEach(entries::remove);
+        sync();
+        // Rewrites sparse chunks so the file shrinks along with the map
+        store.compact(COMPACT_FILL_RATE, COMPACT_WRITE_LIMIT);
+        return expired.size();
+    }
+
+    @Override
+    public void close() {
+        store.close();
+    }
+}
@@ -3,9 +3,28 @@ package com.email.handler.service;
 import com.email.handler.config.EmailHandlerProperties;
 import com.email.handler.model.EmailAttachment;
 import com.email.handler.model.EmailMessage;
+import com.email.handler.model.FetchCheckpoint;
+import com.email.handler.model.FetchResult;
+import com.email.handler.model.ProcessedEmail;
+import com.email.handler.pipeline.FlightEvents;
+import com.email.handler.pipeline.PipelineMetrics;
+import com.email.handler.repository.FetchCheckpointRepository;
+import com.email.handler.repository.ProcessedEmailRepository;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.*;
+import jakarta.mail.internet.ContentType;
 import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.internet.MimeUtility;
+import jakarta.mail.internet.ParseException;
+import jakarta.mail.search.AndTerm;
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.FlagTerm;
+import jakarta.mail.search.HeaderTerm;
+import jakarta.mail.search.ReceivedDateTerm;
+import jakarta.mail.search.SearchTerm;
+import jakarta.mail.search.SizeTerm;
+import jakarta.mail.util.SharedFileInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +33,21 @@ import org.springframework.stereotype.Service;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 @Service
 public class ImapEmailService {
@@ -24,6 +57,23 @@ public class ImapEmailService {
     @Autowired
     private EmailHandlerProperties properties;
 
+    @Autowired
+    private EmailSpoolService emailSpoolService;
+
+    @Autowired
+    private ProcessedEmailRepository processedEmailRepository;
+
+    @Autowired
+    private FetchCheckpointRepository fetchCheckpointRepository;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    // Last UID handed to the pipeline, per folder and UIDVALIDITY
+    private final Map<String, Long> uidCursors = new ConcurrentHashMap<>();
+
+    private final Session parsingSession = Session.getInstance(new Properties());
+
     public Store connectToImapServer() throws MessagingException {
         Properties props = new Properties();
         props.setProperty("mail.store.protocol", "imaps");
@@ -33,19 +83,41 @@ public class ImapEmailService {
         
         Session session = Session.getInstance(props);
         Store store = session.getStore("imaps");
-        store.connect(
-            properties.getImap().getHost(),
-            properties.getImap().getUsername(),
-            properties.getImap().getPassword()
-        );
+        Timer.Sample sample = pipelineMetrics.start();
+        boolean connected = false;
+        try {
+            store.connect(
+                properties.getImap().getHost(),
+                properties.getImap().getUsername(),
+                properties.getImap().getPassword()
+            );
+            connected = true;
+        } finally {
+            pipelineMetrics.stop(sample, PipelineMetrics.IMAP_CONNECT, connected);
+        }
         
         return store;
     }
 
     public List<EmailMessage> fetchEmails() throws MessagingException {
+        return fetchEmails(properties.getImap().getMaxMessagesPerFetch()).getEmails();
+    }
+
+    /**
+     * Fetches up to maxMessages messages that arrived after the UID cursor, oldest
+     * first, and advances the cursor past them. The result also reports how many
+     * newer messages are still waiting on the server. A large backlog is drained
+     * over several connections in parallel, see {@link #drain}.
+     */
+    public FetchResult fetchEmails(int maxMessages) throws MessagingException {
         List<EmailMessage> emails = new ArrayList<>();
         Store store = null;
         Folder folder = null;
+        String folderName;
+        long uidValidity;
+        long[] batchUids;
+        int backlog;
+        long endUid;
         
         try {
             store = connectToImapServer();
@@ -54,22 +126,58 @@ public class ImapEmailService {
             
             int messageCount = folder.getMessageCount();
             if (messageCount == 0) {
-                return emails;
+                return new FetchResult(emails, 0);
             }
             
-            // Fetch only the latest messages up to the configured limit
-            int maxMessages = properties.getImap().getMaxMessagesPerFetch();
-            int startIndex = Math.max(1, messageCount - maxMessages + 1);
+            UIDFolder uidFolder = (UIDFolder) folder;
+            folderName = folder.getFullName();
+            uidValidity = uidFolder.getUIDValidity();
+            String cursorKey = cursorKey(folderName, uidValidity);
+            long cursor = uidCursors.computeIfAbsent(cursorKey,
+                key -> initialCursor(uidFolder, messageCount, maxMessages));
             
-            Message[] messages = folder.getMessages(startIndex, messageCount);
+            // "UID n:*" always includes the newest message, even when its UID is below n
+            List<Message> pending = new ArrayList<>();
+            for (Message message : uidFolder.getMessagesByUID(cursor + 1, UIDFolder.LASTUID)) {
+                if (message != null && uidFolder.getUID(message) > cursor) {
+                    pending.add(message);
+                }
+            }
+            long highestListed = pending.isEmpty() ? cursor : uidFolder.getUID(pending.get(pending.size() - 1));
+            
+            // Let the server drop the candidates that don't match the search criteria
+            SearchTerm searchTerm = buildSearchTerm();
+            if (searchTerm != null && !pending.isEmpty()) {
+                pending = new ArrayList<>(Arrays.asList(folder.search(searchTerm, pending.toArray(new Message[0]))));
+            }
             
-            for (Message message : messages) {
-                try {
-                    EmailMessage emailMessage = parseMessage((MimeMessage) message);
-                    emails.add(emailMessage);
-                } catch (Exception e) {
-                    logger.error("Error parsing message: {}", e.getMessage(), e);
+            List<Message> batch = pending.subList(0, Math.min(maxMessages, pending.size()));
+            backlog = pending.size() - batch.size();
+            // With nothing left over, the cursor can also skip the non-matching messages above the batch
+            endUid = backlog == 0 || batch.isEmpty() ? highestListed : uidFolder.getUID(batch.get(batch.size() - 1));
+            
+            if (!isDrain(pending.size(), batch.size())) {
+                for (Message message : batch) {
+                    try {
+                        emails.add(spoolAndParse(folder, (MimeMessage) message));
+                    } catch (Exception e) {
+                        long uid = uidFolder.getUID(message);
+                        if (!recordFetchFailure(folderName, uidValidity, uid, message, e)) {
+                            // Not recorded anywhere: stop below it so the next poll fetches it again
+                            endUid = uid - 1;
+                            break;
+                        }
+                    }
+                }
+                if (endUid > cursor) {
+                    advanceCursor(folderName, uidValidity, endUid);
                 }
+                return new FetchResult(emails, backlog);
+            }
+            
+            batchUids = new long[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                batchUids[i] = uidFolder.getUID(batch.get(i));
             }
             
         } finally {
@@ -81,9 +189,319 @@ public class ImapEmailService {
             }
         }
         
+        // The listing connection is closed; each partition opens its own
+        return new FetchResult(drain(folderName, uidValidity, batchUids, endUid), backlog);
+    }
+
+    /**
+     * Moves the UID cursor back so that emails that were fetched but not admitted
+     * into the pipeline are fetched again; those that were admitted are skipped by dedup.
+     */
+    public void rewindCursor(String folderName, long uidValidity, long uid) {
+        uidCursors.computeIfPresent(cursorKey(folderName, uidValidity), (key, cursor) -> Math.min(cursor, uid - 1));
+    }
+
+    /**
+     * Server-side SEARCH criteria from the configuration, or null when none are set.
+     */
+    private SearchTerm buildSearchTerm() {
+        EmailHandlerProperties.Search search = properties.getImap().getSearch();
+        List<SearchTerm> terms = new ArrayList<>();
+        
+        if (search.isUnseen()) {
+            terms.add(new FlagTerm(new Flags(Flags.Flag.SEEN), false));
+        }
+        if (search.getSinceDays() > 0) {
+            Date since = Date.from(Instant.now().minus(Duration.ofDays(search.getSinceDays())));
+            terms.add(new ReceivedDateTerm(ComparisonTerm.GE, since));
+        }
+        if (search.getMaxSize() > 0) {
+            terms.add(new SizeTerm(ComparisonTerm.LE, search.getMaxSize()));
+        }
+        for (Map.Entry<String, String> header : search.getHeaders().entrySet()) {
+            terms.add(new HeaderTerm(header.getKey(), header.getValue()));
+        }
+        
+        if (terms.isEmpty()) {
+            return null;
+        }
+        return terms.size() == 1 ? terms.get(0) : new AndTerm(terms.toArray(new SearchTerm[0]));
+    }
+
+    private boolean isDrain(int pending, int batchSize) {
+        EmailHandlerProperties.BacklogDrain backlogDrain = properties.getImap().getBacklogDrain();
+        return backlogDrain.isEnabled() && backlogDrain.getConnections() > 1 &&
+            pending >= backlogDrain.getThreshold() && batchSize >= 2 * backlogDrain.getMinPartitionSize();
+    }
+
+    /**
+     * Splits the batch into contiguous UID partitions and fetches them in parallel,
+     * one IMAP connection each. Every partition keeps a checkpoint, so after a failure
+     * or a restart the cursor resumes at the lowest unfinished partition instead of
+     * skipping the gaps that partitions finishing out of order would leave.
+     * The merged result is in UID order.
+     */
+    private List<EmailMessage> drain(String folderName, long uidValidity, long[] batchUids, long endUid) {
+        EmailHandlerProperties.BacklogDrain backlogDrain = properties.getImap().getBacklogDrain();
+        int partitionCount = Math.min(backlogDrain.getConnections(),
+            batchUids.length / backlogDrain.getMinPartitionSize());
+        int partitionSize = (batchUids.length + partitionCount - 1) / partitionCount;
+        
+        List<long[]> partitions = new ArrayList<>();
+        List<FetchCheckpoint> checkpoints = new ArrayList<>();
+        for (int from = 0; from < batchUids.length; from += partitionSize) {
+            long[] uids = Arrays.copyOfRange(batchUids, from, Math.min(from + partitionSize, batchUids.length));
+            partitions.add(uids);
+            checkpoints.add(new FetchCheckpoint(folderName, uidValidity, uids[0], uids[uids.length - 1]));
+        }
+        fetchCheckpointRepository.saveAll(checkpoints);
+        
+        logger.info("Draining backlog of {}: {} messages (UID {}-{}) over {} connections",
+            folderName, batchUids.length, batchUids[0], batchUids[batchUids.length - 1], partitions.size());
+        long start = System.currentTimeMillis();
+        
+        List<Future<List<EmailMessage>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(drainThreadFactory())) {
+            for (int i = 0; i < partitions.size(); i++) {
+                long[] uids = partitions.get(i);
+                FetchCheckpoint checkpoint = checkpoints.get(i);
+                futures.add(executor.submit(() -> fetchPartition(folderName, uidValidity, uids, checkpoint)));
+            }
+        }
+        
+        List<EmailMessage> emails = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                emails.addAll(futures.get(i).get());
+            } catch (Exception e) {
+                FetchCheckpoint checkpoint = checkpoints.get(i);
+                logger.error("Partition UID {}-{} of {} failed after UID {}: {}", checkpoint.getRangeStart(),
+                    checkpoint.getRangeEnd(), folderName, checkpoint.getLastUid(), e.getMessage());
+            }
+        }
+        fetchCheckpointRepository.saveAll(checkpoints);
+        
+        // Everything below the first unfinished partition has been fetched
+        long cursor = endUid;
+        for (FetchCheckpoint checkpoint : checkpoints) {
+            if (!checkpoint.isComplete()) {
+                cursor = checkpoint.getLastUid();
+                break;
+            }
+        }
+        advanceCursor(folderName, uidValidity, cursor);
+        
+        logger.info("Drained {} of {} messages from {} in {} ms",
+            emails.size(), batchUids.length, folderName, System.currentTimeMillis() - start);
         return emails;
     }
 
+    private List<EmailMessage> fetchPartition(String folderName, long uidValidity, long[] uids,
+                                              FetchCheckpoint checkpoint) throws MessagingException {
+        List<EmailMessage> emails = new ArrayList<>();
+        Store store = null;
+        Folder folder = null;
+        
+        try {
+            store = connectToImapServer();
+            folder = store.getFolder(folderName);
+            folder.open(Folder.READ_ONLY);
+            
+            UIDFolder uidFolder = (UIDFolder) folder;
+            if (uidFolder.getUIDValidity() != uidValidity) {
+                throw new MessagingException("UIDVALIDITY of folder " + folderName + " changed during backlog drain");
+            }
+            
+            Message[] messages = uidFolder.getMessagesByUID(uids);
+            for (int i = 0; i < messages.length; i++) {
+                if (messages[i] != null) {
+                    try {
+                        emails.add(spoolAndParse(folder, (MimeMessage) messages[i]));
+                    } catch (Exception e) {
+                        if (!recordFetchFailure(folderName, uidValidity, uids[i], messages[i], e)) {
+                            // The checkpoint stays before it, so the partition resumes here
+                            return emails;
+                        }
+                    }
+                }
+                checkpoint.setLastUid(uids[i]);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+            }
+            return emails;
+            
+        } finally {
+            if (folder != null && folder.isOpen()) {
+                folder.close(false);
+            }
+            if (store != null && store.isConnected()) {
+                store.close();
+            }
+        }
+    }
+
+    /**
+     * Hands a message that could not be spooled or parsed to the retry job, as a FAILED
+     * row that it re-fetches by UID. Returns false if even that failed, typically because
+     * the connection is gone, in which case the caller must not move past the message.
+     */
+    private boolean recordFetchFailure(String folderName, long uidValidity, long uid, Message message, Exception e) {
+        logger.error("Error fetching UID {} of {}: {}", uid, folderName, e.getMessage(), e);
+        try {
+            String messageId = ((MimeMessage) message).getMessageID();
+            if (messageId == null) {
+                return false;
+            }
+            if (processedEmailRepository.findByMessageId(messageId).isEmpty()) {
+                ProcessedEmail failed = new ProcessedEmail(messageId, ProcessedEmail.ProcessingStatus.FAILED);
+                failed.setFolder(folderName);
+                failed.setUidValidity(uidValidity);
+                failed.setUid(uid);
+                failed.setErrorMessage("Fetch failed: " + (e.getMessage() != null ? e.getMessage() : e.toString()));
+                failed.setRetryCount(1);
+                processedEmailRepository.saveAndFlush(failed);
+            }
+            return true;
+        } catch (Exception recordError) {
+            logger.warn("Unable to record failed fetch of UID {} of {}: {}", uid, folderName, recordError.getMessage());
+            return false;
+        }
+    }
+
+    private ThreadFactory drainThreadFactory() {
+        if (properties.getProcessing().getExecutionMode() == EmailHandlerProperties.ExecutionMode.VIRTUAL) {
+            return Thread.ofVirtual().name("imap-drain-", 1).factory();
+        }
+        return Thread.ofPlatform().name("imap-drain-", 1).daemon(true).factory();
+    }
+
+    private void advanceCursor(String folderName, long uidValidity, long cursor) {
+        uidCursors.put(cursorKey(folderName, uidValidity), cursor);
+        fetchCheckpointRepository.deleteCoveredBy(folderName, uidValidity, cursor);
+    }
+
+    private String cursorKey(String folderName, long uidValidity) {
+        return folderName + ":" + uidValidity;
+    }
+
+    // Resume at the first unfinished drain partition, else after the newest message already
+    // recorded for this folder; without either, start with the newest batch instead of
+    // replaying the whole mailbox
+    private long initialCursor(UIDFolder uidFolder, int messageCount, int maxMessages) {
+        try {
+            Folder folder = (Folder) uidFolder;
+            Long lowWaterMark = fetchCheckpointRepository.findLowWaterMark(folder.getFullName(), uidFolder.getUIDValidity());
+            if (lowWaterMark != null) {
+                logger.info("Resuming interrupted backlog drain of {} after UID {}", folder.getFullName(), lowWaterMark);
+                return lowWaterMark;
+            }
+            Long lastUid = processedEmailRepository.findMaxUid(folder.getFullName(), uidFolder.getUIDValidity());
+            if (lastUid != null) {
+                return lastUid;
+            }
+            int startIndex = Math.max(1, messageCount - maxMessages + 1);
+            return uidFolder.getUID(folder.getMessage(startIndex)) - 1;
+        } catch (MessagingException e) {
+            throw new IllegalStateException("Unable to position UID cursor: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Re-fetches a single message by its UID. Only used when the spooled copy of
+     * a message that still needs work has gone missing.
+     */
+    public EmailMessage fetchByUid(String folderName, long uidValidity, long uid) throws MessagingException, IOException {
+        Store store = null;
+        Folder folder = null;
+        
+        try {
+            store = connectToImapServer();
+            folder = store.getFolder(folderName);
+            folder.open(Folder.READ_ONLY);
+            
+            UIDFolder uidFolder = (UIDFolder) folder;
+            if (uidFolder.getUIDValidity() != uidValidity) {
+                throw new MessagingException("UIDVALIDITY of folder " + folderName + " changed, message " + uid + " can no longer be addressed");
+            }
+            
+            Message message = uidFolder.getMessageByUID(uid);
+            if (message == null) {
+                throw new MessagingException("Message with UID " + uid + " no longer exists in " + folderName);
+            }
+            return spoolAndParse(folder, (MimeMessage) message);
+            
+        } finally {
+            if (folder != null && folder.isOpen()) {
+                folder.close(false);
+            }
+            if (store != null && store.isConnected()) {
+                store.close();
+            }
+        }
+    }
+
+    /**
+     * Parses a message from its spool file without contacting the IMAP server.
+     */
+    public EmailMessage parseSpooledMessage(String spoolPath) throws MessagingException, IOException {
+        SharedFileInputStream inputStream = new SharedFileInputStream(spoolPath);
+        Timer.Sample sample = pipelineMetrics.start();
+        FlightEvents.MessageParse event = new FlightEvents.MessageParse();
+        event.begin();
+        boolean parsed = false;
+        try {
+            EmailMessage emailMessage = parseMessage(new MimeMessage(parsingSession, inputStream));
+            emailMessage.setSpoolPath(spoolPath);
+            parsed = true;
+            if (event.shouldCommit()) {
+                event.messageId = emailMessage.getMessageId();
+                event.size = Files.size(Path.of(spoolPath));
+                event.attachments = emailMessage.getAttachments().size();
+                event.commit();
+            }
+            return emailMessage;
+        } finally {
+            pipelineMetrics.stop(sample, PipelineMetrics.IMAP_PARSE, parsed);
+            inputStream.close();
+        }
+    }
+
+    private EmailMessage spoolAndParse(Folder folder, MimeMessage message) throws MessagingException, IOException {
+        // Download the full message once into the spool and parse the local copy,
+        // instead of fetching each body part from the server separately
+        Timer.Sample sample = pipelineMetrics.start();
+        FlightEvents.ImapFetch event = new FlightEvents.ImapFetch();
+        event.begin();
+        boolean fetched = false;
+        Path spoolPath;
+        try {
+            spoolPath = emailSpoolService.spool(message, message.getMessageID());
+            fetched = true;
+            if (event.shouldCommit()) {
+                event.messageId = message.getMessageID();
+                event.folder = folder.getFullName();
+                event.size = Files.size(spoolPath);
+                event.commit();
+            }
+        } finally {
+            pipelineMetrics.stop(sample, PipelineMetrics.IMAP_FETCH, fetched);
+        }
+        EmailMessage emailMessage;
+        try {
+            emailMessage = parseSpooledMessage(spoolPath.toString());
+        } catch (MessagingException | IOException | RuntimeException e) {
+            // Nothing refers to the spool file yet; a retry spools the message again
+            emailSpoolService.delete(spoolPath.toString());
+            throw e;
+        }
+        
+        UIDFolder uidFolder = (UIDFolder) folder;
+        emailMessage.setFolder(folder.getFullName());
+        emailMessage.setUidValidity(uidFolder.getUIDValidity());
+        emailMessage.setUid(uidFolder.getUID(message));
+        
+        return emailMessage;
+    }
+
     private EmailMessage parseMessage(MimeMessage message) throws MessagingException, IOException {
         EmailMessage emailMessage = new EmailMessage();
         
@@ -102,33 +520,60 @@ public class ImapEmailService {
         emailMessage.setHeaders(headers);
         
         // Parse content and attachments
-        List<EmailAttachment> attachments = new ArrayList<>();
-        StringBuilder contentBuilder = new StringBuilder();
-        
-        parseMessageContent(message, contentBuilder, attachments);
+        ParsedContent parsed = new ParsedContent();
+        parseMessageContent(message, "", parsed);
         
-        emailMessage.setContent(contentBuilder.toString());
-        emailMessage.setAttachments(attachments);
+        emailMessage.setContent(parsed.text.toString());
+        emailMessage.setContentType(parsed.bodyType);
+        emailMessage.setTruncatedBodyPart(parsed.truncatedPart);
+        emailMessage.setAttachments(parsed.attachments);
         
         return emailMessage;
     }
 
-    private void parseMessageContent(Part part, StringBuilder content, List<EmailAttachment> attachments) 
+    /**
+     * Body text and attachments collected from one message.
+     */
+    static class ParsedContent {
+        final StringBuilder text = new StringBuilder();
+        final List<EmailAttachment> attachments = new ArrayList<>();
+        String bodyType;
+        String truncatedPart;
+    }
+
+    // Package-private for the JMH parsing benchmark; path is the part's position in the MIME tree
+    void parseMessageContent(Part part, String path, ParsedContent parsed) 
             throws MessagingException, IOException {
         
-        if (part.isMimeType("text/plain") || part.isMimeType("text/html")) {
-            content.append(part.getContent().toString());
-        } else if (part.isMimeType("multipart/*")) {
+        if (part.isMimeType("multipart/alternative")) {
+            // Renditions of the same text: use one instead of concatenating them all
+            Multipart multipart = (Multipart) part.getContent();
+            int chosen = chooseAlternative(multipart);
+            if (chosen >= 0) {
+                parseMessageContent(multipart.getBodyPart(chosen), childPath(path, chosen), parsed);
+            }
+            return;
+        }
+        if (part.isMimeType("multipart/*")) {
             Multipart multipart = (Multipart) part.getContent();
             for (int i = 0; i < multipart.getCount(); i++) {
-                parseMessageContent(multipart.getBodyPart(i), content, attachments);
+                parseMessageContent(multipart.getBodyPart(i), childPath(path, i), parsed);
             }
-        } else if (Part.ATTACHMENT.equalsIgnoreCase(part.getDisposition()) || 
-                   part.getFileName() != null) {
+            return;
+        }
+        
+        FlightEvents.PartParse event = new FlightEvents.PartParse();
+        event.begin();
+        boolean attachment = Part.ATTACHMENT.equalsIgnoreCase(part.getDisposition());
+        if (!attachment && (part.isMimeType("text/plain") || part.isMimeType("text/html"))) {
+            appendText(part, path, parsed);
+        } else if (attachment || part.getFileName() != null) {
             // Handle attachment
             String filename = part.getFileName();
             String contentType = part.getContentType();
             
+            FlightEvents.AttachmentCopy copyEvent = new FlightEvents.AttachmentCopy();
+            copyEvent.begin();
             InputStream inputStream = part.getInputStream();
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             byte[] buffer = new byte[8192];
@@ -137,11 +582,109 @@ public class ImapEmailService {
                 outputStream.write(buffer, 0, bytesRead);
             }
             
-            EmailAttachment attachment = new EmailAttachment(filename, contentType, outputStream.toByteArray());
-            attachments.add(attachment);
+            EmailAttachment emailAttachment = new EmailAttachment(filename, contentType, outputStream.toByteArray());
+            // The bytes are in memory already; classifying them here costs no extra read
+            emailAttachment.setSniffedFormat(MediaSniffer.sniff(emailAttachment.getContent(), contentType));
+            parsed.attachments.add(emailAttachment);
             
             inputStream.close();
             outputStream.close();
+            if (copyEvent.shouldCommit()) {
+                copyEvent.filename = filename;
+                copyEvent.bytes = emailAttachment.getContent().length;
+                copyEvent.commit();
+            }
+        }
+        // Anything else inline (calendar invites, unnamed images, signatures) is neither body nor attachment
+        if (event.shouldCommit()) {
+            event.contentType = part.getContentType();
+            event.size = part.getSize();
+            event.commit();
+        }
+    }
+
+    /**
+     * Decodes a text part straight from its stream into the body, stopping at max-chars
+     * so a huge HTML newsletter never exists as a whole string.
+     */
+    private void appendText(Part part, String path, ParsedContent parsed) throws MessagingException, IOException {
+        EmailHandlerProperties.Body body = properties.getProcessing().getBody();
+        if (parsed.bodyType == null) {
+            parsed.bodyType = baseType(part);
+        }
+        if (parsed.truncatedPart != null) {
+            return;
+        }
+        
+        StringBuilder text = parsed.text;
+        try (Reader reader = new InputStreamReader(part.getInputStream(), charsetOf(part))) {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                int room = body.getMaxChars() - text.length();
+                if (read > room) {
+                    text.append(buffer, 0, Math.max(room, 0));
+                    text.append(body.getTruncationMarker());
+                    parsed.truncatedPart = path;
+                    return;
+                }
+                text.append(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Index of the alternative to use: the preferred text type, else the other one,
+     * else the last (richest) alternative. Later alternatives win ties, as they are
+     * the closer rendition of the original.
+     */
+    private int chooseAlternative(Multipart multipart) throws MessagingException, IOException {
+        String preferred = properties.getProcessing().getBody().getPreferred() == EmailHandlerProperties.BodyPreference.HTML
+            ? "text/html" : "text/plain";
+        int fallback = -1;
+        for (int i = multipart.getCount() - 1; i >= 0; i--) {
+            Part leaf = leadingPart(multipart.getBodyPart(i));
+            if (leaf.isMimeType(preferred)) {
+                return i;
+            }
+            if (fallback < 0 && (leaf.isMimeType("text/plain") || leaf.isMimeType("text/html"))) {
+                fallback = i;
+            }
+        }
+        return fallback >= 0 ? fallback : multipart.getCount() - 1;
+    }
+
+    // The part that determines what a (possibly multipart/related or mixed) alternative shows
+    private Part leadingPart(Part part) throws MessagingException, IOException {
+        while (part.isMimeType("multipart/*")) {
+            Multipart multipart = (Multipart) part.getContent();
+            if (multipart.getCount() == 0) {
+                break;
+            }
+            part = multipart.getBodyPart(0);
+        }
+        return part;
+    }
+
+    private static String childPath(String path, int index) {
+        return path.isEmpty() ? String.valueOf(index) : path + "." + index;
+    }
+
+    private static String baseType(Part part) throws MessagingException {
+        try {
+            return new ContentType(part.getContentType()).getBaseType().toLowerCase();
+        } catch (ParseException e) {
+            return part.isMimeType("text/html") ? "text/html" : "text/plain";
+        }
+    }
+
+    private static Charset charsetOf(Part part) throws MessagingException {
+        try {
+            String charset = new ContentType(part.getContentType()).getParameter("charset");
+            return charset != null ? Charset.forName(MimeUtility.javaCharset(charset)) : StandardCharsets.US_ASCII;
+        } catch (ParseException | IllegalArgumentException e) {
+            // Unknown or malformed charset: keep the bytes rather than failing the message
+            return StandardCharsets.ISO_8859_1;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,189 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.ProcessedEmail;
+import com.email.handler.pipeline.DownstreamLimiter;
+import com.email.handler.repository.ProcessedEmailRepository;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+import jakarta.mail.Flags;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Store;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.email.handler.pipeline.DownstreamLimiter.Downstream.IMAP;
+
+/**
+ * Flags forwarded messages on the server, or moves them out of the polled folder,
+ * so the working folder stays small. Works from the processed_emails table rather
+ * than an in-memory queue, so nothing is missed across restarts, and touches the
+ * mailbox in UID sets of post-process.batch-size per connection.
+ */
+@Service
+public class ImapPostProcessingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImapPostProcessingService.class);
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    @Autowired
+    private ImapEmailService imapEmailService;
+
+    @Autowired
+    private ProcessedEmailRepository processedEmailRepository;
+
+    @Autowired
+    private DownstreamLimiter downstreamLimiter;
+
+    @Scheduled(
+        initialDelayString = "#{emailHandlerProperties.imap.postProcess.interval}",
+        fixedDelayString = "#{emailHandlerProperties.imap.postProcess.interval}"
+    )
+    public void postProcessForwardedEmails() {
+        EmailHandlerProperties.PostProcess postProcess = properties.getImap().getPostProcess();
+        if (postProcess.getAction() == EmailHandlerProperties.PostProcessAction.NONE) {
+            return;
+        }
+
+        long afterId = 0;
+        int processed = 0;
+        try {
+            while (true) {
+                List<ProcessedEmailRepository.MailboxReference> batch = processedEmailRepository.findPostProcessCandidates(
+                    afterId,
+                    ProcessedEmail.ProcessingStatus.FORWARDED,
+                    PageRequest.of(0, postProcess.getBatchSize())
+                );
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                // One connection and one UID set per folder generation
+                Map<String, List<ProcessedEmailRepository.MailboxReference>> byFolder = new LinkedHashMap<>();
+                for (ProcessedEmailRepository.MailboxReference reference : batch) {
+                    byFolder.computeIfAbsent(reference.getFolder() + ":" + reference.getUidValidity(),
+                        key -> new ArrayList<>()).add(reference);
+                }
+                for (List<ProcessedEmailRepository.MailboxReference> references : byFolder.values()) {
+                    List<Long> ids = references.stream().map(ProcessedEmailRepository.MailboxReference::getId).toList();
+                    String skipped = downstreamLimiter.call(IMAP, () -> apply(postProcess, references));
+                    if (skipped != null) {
+                        processedEmailRepository.markPostProcessSkipped(ids, LocalDateTime.now(), skipped);
+                        continue;
+                    }
+                    processedEmailRepository.markPostProcessed(ids, LocalDateTime.now());
+                    processed += references.size();
+                }
+
+                afterId = batch.get(batch.size() - 1).getId();
+                if (batch.size() < postProcess.getBatchSize()) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error post-processing forwarded emails: {}", e.getMessage(), e);
+        }
+
+        if (processed > 0) {
+            logger.info("Applied {} to {} forwarded messages", postProcess.getAction(), processed);
+        }
+    }
+
+    /**
+     * Flags or moves the referenced messages; returns why they were left alone, or null.
+     */
+    private String apply(EmailHandlerProperties.PostProcess postProcess,
+                         List<ProcessedEmailRepository.MailboxReference> references) throws MessagingException {
+        ProcessedEmailRepository.MailboxReference first = references.get(0);
+        Store store = null;
+        IMAPFolder folder = null;
+
+        try {
+            store = imapEmailService.connectToImapServer();
+            folder = (IMAPFolder) store.getFolder(first.getFolder());
+            folder.open(Folder.READ_WRITE);
+
+            if (folder.getUIDValidity() != first.getUidValidity()) {
+                // The UIDs no longer address the same messages; there is nothing safe to do,
+                // and the generation never comes back, so the rows are not tried again
+                logger.warn("UIDVALIDITY of {} changed from {} to {}, leaving {} messages untouched",
+                    first.getFolder(), first.getUidValidity(), folder.getUIDValidity(), references.size());
+                return "UIDVALIDITY changed from " + first.getUidValidity() + " to " + folder.getUIDValidity();
+            }
+
+            long[] uids = references.stream().mapToLong(ProcessedEmailRepository.MailboxReference::getUid).toArray();
+            Message[] messages = Arrays.stream(folder.getMessagesByUID(uids))
+                .filter(Objects::nonNull)
+                .toArray(Message[]::new);
+            if (messages.length == 0) {
+                return null;
+            }
+
+            if (postProcess.getAction() == EmailHandlerProperties.PostProcessAction.MOVE) {
+                move(store, folder, messages, postProcess);
+            } else {
+                flag(folder, messages, postProcess.getFlag());
+            }
+            return null;
+
+        } finally {
+            if (folder != null && folder.isOpen()) {
+                folder.close(false);
+            }
+            if (store != null && store.isConnected()) {
+                store.close();
+            }
+        }
+    }
+
+    private void move(Store store, IMAPFolder folder, Message[] messages,
+                      EmailHandlerProperties.PostProcess postProcess) throws MessagingException {
+        String targetName = postProcess.getProcessedFolder();
+        Folder target = store.getFolder(targetName);
+        if (!target.exists() && !target.create(Folder.HOLDS_MESSAGES)) {
+            throw new MessagingException("Unable to create folder " + targetName);
+        }
+
+        if (((IMAPStore) store).hasCapability("MOVE")) {
+            folder.moveMessages(messages, target);
+            return;
+        }
+
+        // No MOVE extension: copy, mark deleted and expunge just these UIDs where UIDPLUS allows it
+        folder.copyMessages(messages, target);
+        folder.setFlags(messages, new Flags(Flags.Flag.DELETED), true);
+        if (((IMAPStore) store).hasCapability("UIDPLUS")) {
+            folder.expunge(messages);
+        } else if (postProcess.isExpungeAll()) {
+            folder.expunge();
+        } else {
+            // A plain EXPUNGE would also remove whatever else the user marked \Deleted
+            logger.warn("{} supports neither MOVE nor UIDPLUS; {} copied messages stay in {} flagged \\Deleted",
+                store.getURLName().getHost(), messages.length, folder.getFullName());
+        }
+    }
+
+    private void flag(IMAPFolder folder, Message[] messages, String keyword) throws MessagingException {
+        Flags flags = new Flags(Flags.Flag.SEEN);
+        if (keyword != null && !keyword.isBlank() && folder.getPermanentFlags().contains(Flags.Flag.USER)) {
+            flags.add(keyword);
+        }
+        folder.setFlags(messages, flags, true);
+    }
+}
@@ -0,0 +1,69 @@
+package com.email.handler.service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads the messages of a Maildir's cur/ and new/ in file name order, which starts
+ * with the delivery time. Names are compared without the ":2,FLAGS" suffix, so a
+ * message that moved from new/ to cur/ since the last checkpoint is not read twice.
+ * Every file is memory-mapped rather than copied onto the heap.
+ */
+class MaildirArchiveSource implements ArchiveSource {
+
+    private final Iterator<Path> files;
+
+    MaildirArchiveSource(Path directory, String checkpoint) throws IOException {
+        if (!Files.isDirectory(directory.resolve("cur")) && !Files.isDirectory(directory.resolve("new"))) {
+            throw new IOException(directory + " is not a Maildir, it has neither cur/ nor new/");
+        }
+        List<Path> messages = Stream.concat(list(directory.resolve("cur")).stream(), list(directory.resolve("new")).stream())
+            .filter(file -> checkpoint == null || uniqueName(file).compareTo(checkpoint) > 0)
+            .sorted(Comparator.comparing(MaildirArchiveSource::uniqueName))
+            .toList();
+        this.files = messages.iterator();
+    }
+
+    @Override
+    public Entry next() throws IOException {
+        while (files.hasNext()) {
+            Path file = files.next();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return new Entry(uniqueName(file), channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (NoSuchFileException e) {
+                // Expunged by a mail client since the directory was listed
+            }
+        }
+        return null;
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries
+                .filter(file -> !file.getFileName().toString().startsWith("."))
+                .filter(Files::isRegularFile)
+                .toList();
+        }
+    }
+
+    private static String uniqueName(Path file) {
+        String name = file.getFileName().toString();
+        int info = name.indexOf(':');
+        return info >= 0 ? name.substring(0, info) : name;
+    }
+
+    @Override
+    public void close() {
+    }
+}
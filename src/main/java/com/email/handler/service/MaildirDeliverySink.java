@@ -0,0 +1,106 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.EmailMessage;
+import com.email.handler.pipeline.PipelineMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeMessage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Drops one file per email into a local Maildir: written and synced under tmp/,
+ * then renamed into new/, so a consumer never sees a partial file. Files are either
+ * the forward as it would be sent (MIME) or the JSON record the webhook sends.
+ */
+class MaildirDeliverySink implements DeliverySink {
+
+    private final Path root;
+    private final EmailHandlerProperties.MaildirFormat format;
+    private final EmailForwardingService emailForwardingService;
+    private final PipelineMetrics pipelineMetrics;
+
+    MaildirDeliverySink(EmailHandlerProperties.Maildir maildir, EmailForwardingService emailForwardingService,
+                        PipelineMetrics pipelineMetrics) throws IOException {
+        this.root = Path.of(maildir.getPath()).toAbsolutePath().normalize();
+        this.format = maildir.getFormat();
+        this.emailForwardingService = emailForwardingService;
+        this.pipelineMetrics = pipelineMetrics;
+        for (String directory : new String[] {"tmp", "new", "cur"}) {
+            Files.createDirectories(root.resolve(directory));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "MAILDIR";
+    }
+
+    @Override
+    public CompletableFuture<String> deliver(EmailMessage email, boolean transcriptsToFollow) {
+        try {
+            if (format == EmailHandlerProperties.MaildirFormat.JSON) {
+                drop(out -> out.write(DeliveryRecords.OBJECT_MAPPER.writeValueAsBytes(DeliveryRecords.email(email, transcriptsToFollow))));
+                return CompletableFuture.completedFuture(email.getMessageId());
+            }
+            MimeMessage forward = emailForwardingService.buildForward(email, transcriptsToFollow);
+            drop(forward::writeTo);
+            return CompletableFuture.completedFuture(forward.getMessageID());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> deliverFollowUp(EmailMessage email) {
+        try {
+            if (format == EmailHandlerProperties.MaildirFormat.JSON) {
+                drop(out -> out.write(DeliveryRecords.OBJECT_MAPPER.writeValueAsBytes(DeliveryRecords.followUp(email))));
+            } else {
+                String forwardedMessageId = email.getDeliveries().getOrDefault(getName(), email.getForwardedMessageId());
+                drop(emailForwardingService.buildTranscriptFollowUp(email, forwardedMessageId)::writeTo);
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void drop(Writer writer) throws Exception {
+        Timer.Sample sample = pipelineMetrics.start();
+        boolean written = false;
+        // Maildir unique name: time, a random part and the delivering application
+        String name = System.currentTimeMillis() + "." + UUID.randomUUID() + ".email-handler";
+        Path tmp = root.resolve("tmp").resolve(name);
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 65536);
+                writer.write(out);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tmp, root.resolve("new").resolve(name), StandardCopyOption.ATOMIC_MOVE);
+            written = true;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(tmp);
+            }
+            pipelineMetrics.stop(sample, PipelineMetrics.MAILDIR_WRITE, written);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(OutputStream out) throws Exception;
+    }
+}
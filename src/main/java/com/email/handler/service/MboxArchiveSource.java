@@ -0,0 +1,176 @@
+package com.email.handler.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads an mbox file through a memory-mapped window, scanning it for the "From "
+ * lines that start each message, so files of any size are read without pulling
+ * them onto the heap. Checkpoints are byte offsets of the next message. Body lines
+ * quoted as ">From " (">>From " and so on in mboxrd) lose one level of quoting.
+ */
+class MboxArchiveSource implements ArchiveSource {
+
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final byte[] ENVELOPE = "From ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SEPARATOR = "\nFrom ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEWLINE = {'\n'};
+    private static final byte QUOTE = '>';
+
+    private final Path file;
+    private final long windowSize;
+    private final FileChannel channel;
+    private final long size;
+    private long position;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    MboxArchiveSource(Path file, String checkpoint) throws IOException {
+        this(file, checkpoint, WINDOW_SIZE);
+    }
+
+    MboxArchiveSource(Path file, String checkpoint, long windowSize) throws IOException {
+        this.file = file;
+        this.windowSize = windowSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.position = checkpoint != null ? Long.parseLong(checkpoint) : 0;
+        if (position > size) {
+            channel.close();
+            throw new IOException("Mbox " + file + " is shorter than its checkpoint at " + position +
+                ", it was truncated or replaced");
+        }
+    }
+
+    @Override
+    public Entry next() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        if (size - position < ENVELOPE.length || !startsWith(map(position, ENVELOPE.length), ENVELOPE)) {
+            throw new IOException("No mbox envelope line at offset " + position + " of " + file);
+        }
+
+        // The envelope line itself is not part of the message
+        long envelopeEnd = indexOf(NEWLINE, position);
+        if (envelopeEnd < 0) {
+            position = size;
+            return null;
+        }
+        long start = envelopeEnd + 1;
+        long separator = indexOf(SEPARATOR, start);
+        long end = separator >= 0 ? separator + 1 : size;
+
+        ByteBuffer content = unquote(map(start, end - start));
+        position = end;
+        return new Entry(String.valueOf(end), content);
+    }
+
+    /**
+     * Offset of the first occurrence of the pattern at or after from, or -1. The search
+     * runs through the current window and only slides it forward when it reaches the
+     * end, so consecutive messages are found within one mapping.
+     */
+    private long indexOf(byte[] pattern, long from) throws IOException {
+        long start = from;
+        while (size - start >= pattern.length) {
+            if (window == null || start < windowStart || start + pattern.length > windowEnd()) {
+                remap(start, windowSize);
+            }
+            int last = window.capacity() - pattern.length;
+            for (int i = (int) (start - windowStart); i <= last; i++) {
+                if (window.get(i) == pattern[0] && matchesAt(window, i, pattern)) {
+                    return windowStart + i;
+                }
+            }
+            if (windowEnd() >= size) {
+                return -1;
+            }
+            // Overlap the next window so a pattern crossing the boundary is still found
+            start = windowStart + last + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * A view of the given range, remapping the window when the range falls outside it.
+     */
+    private ByteBuffer map(long from, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Message at offset " + from + " of " + file + " is larger than 2 GB");
+        }
+        if (window == null || from < windowStart || from + length > windowEnd()) {
+            remap(from, Math.max(windowSize, length));
+        }
+        return window.slice((int) (from - windowStart), (int) length);
+    }
+
+    private void remap(long from, long length) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(length, size - from));
+        windowStart = from;
+    }
+
+    private long windowEnd() {
+        return windowStart + window.capacity();
+    }
+
+    /**
+     * Removes one ">" from every line of the form ">From ", ">>From " and so on. A message
+     * without such lines is returned as the mapped view itself; otherwise it is copied.
+     */
+    private static ByteBuffer unquote(ByteBuffer content) {
+        int line = nextQuotedLine(content, 0);
+        if (line < 0) {
+            return content;
+        }
+        ByteBuffer unquoted = ByteBuffer.allocate(content.limit());
+        int copied = 0;
+        for (; line >= 0; line = nextQuotedLine(content, line + 1)) {
+            unquoted.put(content.slice(copied, line - copied));
+            copied = line + 1;
+        }
+        unquoted.put(content.slice(copied, content.limit() - copied));
+        return unquoted.flip();
+    }
+
+    private static int nextQuotedLine(ByteBuffer content, int from) {
+        int limit = content.limit();
+        for (int i = from; i < limit; i++) {
+            if (content.get(i) == QUOTE && (i == 0 || content.get(i - 1) == '\n')) {
+                int text = i;
+                while (text < limit && content.get(text) == QUOTE) {
+                    text++;
+                }
+                if (limit - text >= ENVELOPE.length && matchesAt(content, text, ENVELOPE)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, byte[] prefix) {
+        return matchesAt(buffer, 0, prefix);
+    }
+
+    private static boolean matchesAt(ByteBuffer buffer, int index, byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (buffer.get(index + i) != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Views already handed out stay valid; a mapping outlives its channel
+        channel.close();
+    }
+}
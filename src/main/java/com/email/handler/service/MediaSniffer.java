@@ -0,0 +1,204 @@
+package com.email.handler.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Recognises audio and video containers from their leading bytes, so routing does
+ * not depend on the filename alone. Formats are named as in the supported-format
+ * lists ("mp3", "m4a", "mkv", ...). The declared Content-Type only settles what the
+ * bytes leave open, such as audio-only versus video MP4.
+ */
+final class MediaSniffer {
+
+    // Sniffed, but the content matched no media signature
+    static final String UNRECOGNIZED = "";
+
+    private static final int MIN_BYTES = 12;
+    // MPEG audio without an ID3 tag is confirmed by further frame headers in this range
+    private static final int FRAME_SCAN_BYTES = 4096;
+
+    // Top-level atoms a QuickTime file can start with when it predates the ftyp box
+    private static final String[] QUICKTIME_ATOMS = {"moov", "mdat", "wide", "free", "skip", "pnot"};
+
+    private static final byte[] EBML = {0x1A, 0x45, (byte) 0xDF, (byte) 0xA3};
+    private static final byte[] ASF = {0x30, 0x26, (byte) 0xB2, 0x75, (byte) 0x8E, 0x66, (byte) 0xCF, 0x11,
+        (byte) 0xA6, (byte) 0xD9, 0x00, (byte) 0xAA, 0x00, 0x62, (byte) 0xCE, 0x6C};
+
+    private static final Map<String, String> MIME_TYPES = Map.ofEntries(
+        Map.entry("mp3", "audio/mpeg"),
+        Map.entry("aac", "audio/aac"),
+        Map.entry("m4a", "audio/mp4"),
+        Map.entry("wav", "audio/wav"),
+        Map.entry("flac", "audio/flac"),
+        Map.entry("ogg", "audio/ogg"),
+        Map.entry("amr", "audio/amr"),
+        Map.entry("wma", "audio/x-ms-wma"),
+        Map.entry("mp4", "video/mp4"),
+        Map.entry("mov", "video/quicktime"),
+        Map.entry("3gp", "video/3gpp"),
+        Map.entry("mkv", "video/x-matroska"),
+        Map.entry("webm", "video/webm"),
+        Map.entry("avi", "video/x-msvideo"),
+        Map.entry("wmv", "video/x-ms-wmv")
+    );
+
+    private MediaSniffer() {}
+
+    /**
+     * The media format of the content, {@link #UNRECOGNIZED} when it is not media,
+     * or null when there are too few bytes to tell.
+     */
+    static String sniff(byte[] content, String contentType) {
+        if (content == null || content.length < MIN_BYTES) {
+            return null;
+        }
+        boolean declaredAudio = contentType != null && contentType.toLowerCase().startsWith("audio/");
+
+        if (startsWith(content, 0, "RIFF")) {
+            if (startsWith(content, 8, "WAVE")) {
+                return "wav";
+            }
+            return startsWith(content, 8, "AVI ") ? "avi" : UNRECOGNIZED;
+        }
+        if (startsWith(content, 4, "ftyp")) {
+            return isoBrand(content, declaredAudio);
+        }
+        if (isQuickTimeAtom(content)) {
+            return "mov";
+        }
+        if (startsWith(content, 0, "fLaC")) {
+            return "flac";
+        }
+        if (startsWith(content, 0, "OggS")) {
+            return "ogg";
+        }
+        if (startsWith(content, 0, "#!AMR")) {
+            return "amr";
+        }
+        if (startsWith(content, 0, EBML)) {
+            // The DocType element follows within the EBML header
+            return indexOf(content, "webm", 64) >= 0 ? "webm" : "mkv";
+        }
+        if (startsWith(content, 0, ASF)) {
+            return declaredAudio ? "wma" : "wmv";
+        }
+        if (startsWith(content, 0, "ID3")) {
+            // An ID3v2 tag is specific enough; it precedes MP3 and, rarely, ADTS AAC frames
+            int frame = 10 + syncsafe(content, 6);
+            return frame + 1 < content.length && isAdts(content, frame) ? "aac" : "mp3";
+        }
+        if (isAdts(content, 0) && repeatsHeader(content, 0xF6)) {
+            return "aac";
+        }
+        if (isMpegAudio(content, 0) && repeatsHeader(content, 0xFE)) {
+            return "mp3";
+        }
+        return UNRECOGNIZED;
+    }
+
+    /**
+     * MIME type to declare for a sniffed format, or null if unknown.
+     */
+    static String mimeType(String format) {
+        return format != null ? MIME_TYPES.get(format) : null;
+    }
+
+    private static String isoBrand(byte[] content, boolean declaredAudio) {
+        String brand = new String(content, 8, 4, StandardCharsets.US_ASCII);
+        if (brand.startsWith("M4A") || brand.startsWith("M4B") || brand.startsWith("M4P")) {
+            return "m4a";
+        }
+        if (brand.equals("qt  ")) {
+            return "mov";
+        }
+        if (brand.startsWith("3gp") || brand.startsWith("3g2")) {
+            return "3gp";
+        }
+        // Generic brands (isom, mp41, mp42, ...) carry audio-only and video files alike
+        return declaredAudio ? "m4a" : "mp4";
+    }
+
+    // An atom header: a 32-bit size of 0 (to the end), 1 (64-bit size follows) or at least 8, then the type
+    private static boolean isQuickTimeAtom(byte[] content) {
+        long size = (content[0] & 0xFFL) << 24 | (content[1] & 0xFF) << 16 | (content[2] & 0xFF) << 8 | (content[3] & 0xFF);
+        if (size != 0 && size != 1 && size < 8) {
+            return false;
+        }
+        for (String atom : QUICKTIME_ATOMS) {
+            if (startsWith(content, 4, atom)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ADTS: 12-bit sync, layer 00
+    private static boolean isAdts(byte[] content, int offset) {
+        return (content[offset] & 0xFF) == 0xFF && (content[offset + 1] & 0xF6) == 0xF0;
+    }
+
+    // MPEG audio frame header: 11-bit sync, a defined version and layer, a usable bitrate and sample rate
+    private static boolean isMpegAudio(byte[] content, int offset) {
+        if (offset + 3 >= content.length) {
+            return false;
+        }
+        int b1 = content[offset + 1] & 0xFF;
+        int b2 = content[offset + 2] & 0xFF;
+        return (content[offset] & 0xFF) == 0xFF && (b1 & 0xE0) == 0xE0
+            && ((b1 >> 3) & 0x03) != 0x01
+            && ((b1 >> 1) & 0x03) != 0x00
+            && (b2 >> 4) != 0x00 && (b2 >> 4) != 0x0F
+            && ((b2 >> 2) & 0x03) != 0x03;
+    }
+
+    /**
+     * Whether the frame header at offset 0 appears again (same version, layer and
+     * sample rate) in the first few KB. A lone sync word is common in arbitrary
+     * binary data; a stream of frames is not.
+     */
+    private static boolean repeatsHeader(byte[] content, int versionMask) {
+        int limit = Math.min(content.length, FRAME_SCAN_BYTES) - 2;
+        int b1 = content[1] & versionMask;
+        int sampleRate = (content[2] >> 2) & 0x03;
+        for (int i = 4; i < limit; i++) {
+            if ((content[i] & 0xFF) == 0xFF && (content[i + 1] & versionMask) == b1
+                    && ((content[i + 2] >> 2) & 0x03) == sampleRate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int syncsafe(byte[] content, int offset) {
+        return (content[offset] & 0x7F) << 21 | (content[offset + 1] & 0x7F) << 14
+            | (content[offset + 2] & 0x7F) << 7 | (content[offset + 3] & 0x7F);
+    }
+
+    private static boolean startsWith(byte[] content, int offset, String signature) {
+        return startsWith(content, offset, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static boolean startsWith(byte[] content, int offset, byte[] signature) {
+        if (offset + signature.length > content.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (content[offset + i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] content, String needle, int within) {
+        byte[] pattern = needle.getBytes(StandardCharsets.US_ASCII);
+        int last = Math.min(content.length, within) - pattern.length;
+        for (int i = 0; i <= last; i++) {
+            if (startsWith(content, i, pattern)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,31 @@
+package com.email.handler.service;
+
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedup entries in Redis, shared by every node polling the same mailbox. Redis
+ * expires the keys itself.
+ */
+public class RedisDedupStore implements DedupStore {
+
+    private static final String KEY_PREFIX = "email:processed:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public RedisDedupStore(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public boolean contains(String messageId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + messageId));
+    }
+
+    @Override
+    public void remember(String messageId, String status, Duration ttl) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + messageId, status, ttl.toSeconds(), TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,168 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.EmailDailyCount;
+import com.email.handler.model.ProcessedEmail;
+import com.email.handler.repository.EmailDailyCountRepository;
+import com.email.handler.repository.EmailStageTimingRepository;
+import com.email.handler.repository.ProcessedEmailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Purges processed_emails rows once they are older than the duplicate-prevention
+ * window, optionally rolling them up into per-day counts first. Stage timings
+ * older than the same window go with them. There is no compaction step here: H2
+ * only shrinks its file when the database closes, so that happens at shutdown
+ * (MAX_COMPACT_TIME in the datasource URL) and the file reuses freed pages meanwhile.
+ */
+@Service
+public class RetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionService.class);
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    @Autowired
+    private ProcessedEmailRepository processedEmailRepository;
+
+    @Autowired
+    private EmailDailyCountRepository emailDailyCountRepository;
+
+    @Autowired
+    private DuplicatePreventionService duplicatePreventionService;
+
+    @Autowired
+    private EmailStageTimingRepository emailStageTimingRepository;
+
+    @Autowired
+    private EmailSpoolService emailSpoolService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Scheduled(
+        initialDelayString = "#{emailHandlerProperties.retention.purgeInterval}",
+        fixedDelayString = "#{emailHandlerProperties.retention.purgeInterval}"
+    )
+    public void purgeExpiredEmails() {
+        if (!properties.getRetention().isEnabled()) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(duplicatePreventionService.getCacheDuration());
+        int batchSize = properties.getRetention().getBatchSize();
+        int maxRetryAttempts = properties.getProcessing().getMaxRetryAttempts();
+
+        long startTime = System.currentTimeMillis();
+        long afterId = 0;
+        long purged = 0;
+
+        logger.debug("Purging processed emails older than {}", cutoff);
+
+        try {
+            while (true) {
+                long batchStart = System.currentTimeMillis();
+
+                List<ProcessedEmailRepository.PurgeCandidate> batch = processedEmailRepository.findPurgeCandidates(
+                    afterId,
+                    cutoff,
+                    ProcessedEmail.ProcessingStatus.FORWARDED,
+                    ProcessedEmail.ProcessingStatus.FAILED,
+                    maxRetryAttempts,
+                    PageRequest.of(0, batchSize)
+                );
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                Integer deleted = transactionTemplate.execute(status -> purgeBatch(batch));
+                purged += deleted != null ? deleted : 0;
+                afterId = batch.get(batch.size() - 1).getId();
+
+                for (ProcessedEmailRepository.PurgeCandidate candidate : batch) {
+                    emailSpoolService.delete(candidate.getSpoolPath());
+                }
+
+                if (batch.size() < batchSize) {
+                    break;
+                }
+
+                // Give the hot path room between batches: pause at least as long as the batch held its locks
+                long batchDuration = System.currentTimeMillis() - batchStart;
+                Thread.sleep(Math.max(properties.getRetention().getBatchPause(), batchDuration));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Retention purge interrupted after {} rows", purged);
+        } catch (Exception e) {
+            logger.error("Error during retention purge: {}", e.getMessage(), e);
+        }
+
+        try {
+            int expired = duplicatePreventionService.purgeExpiredEntries();
+            if (expired > 0) {
+                logger.info("Purged {} expired dedup store entries", expired);
+            }
+        } catch (Exception e) {
+            logger.error("Error purging dedup store: {}", e.getMessage(), e);
+        }
+
+        try {
+            int timings = emailStageTimingRepository.deleteEndedBefore(cutoff);
+            if (timings > 0) {
+                logger.info("Purged {} stage timings older than {}", timings, cutoff);
+            }
+        } catch (Exception e) {
+            logger.error("Error purging stage timings: {}", e.getMessage(), e);
+        }
+
+        if (purged > 0) {
+            long elapsed = Math.max(System.currentTimeMillis() - startTime, 1);
+            logger.info("Purged {} processed emails older than {} in {} ms ({} rows/s)",
+                purged, cutoff, elapsed, purged * 1000 / elapsed);
+        }
+    }
+
+    private int purgeBatch(List<ProcessedEmailRepository.PurgeCandidate> batch) {
+        if (properties.getRetention().isRollupEnabled()) {
+            rollUp(batch);
+        }
+
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (ProcessedEmailRepository.PurgeCandidate candidate : batch) {
+            ids.add(candidate.getId());
+        }
+        return processedEmailRepository.deleteByIdIn(ids);
+    }
+
+    private void rollUp(List<ProcessedEmailRepository.PurgeCandidate> batch) {
+        Map<LocalDate, Map<ProcessedEmail.ProcessingStatus, Long>> counts = new HashMap<>();
+        for (ProcessedEmailRepository.PurgeCandidate candidate : batch) {
+            counts.computeIfAbsent(candidate.getProcessedAt().toLocalDate(), day -> new HashMap<>())
+                .merge(candidate.getStatus(), 1L, Long::sum);
+        }
+
+        for (Map.Entry<LocalDate, Map<ProcessedEmail.ProcessingStatus, Long>> day : counts.entrySet()) {
+            for (Map.Entry<ProcessedEmail.ProcessingStatus, Long> status : day.getValue().entrySet()) {
+                EmailDailyCount dailyCount = emailDailyCountRepository.findByDayAndStatus(day.getKey(), status.getKey())
+                    .orElse(new EmailDailyCount(day.getKey(), status.getKey()));
+                dailyCount.setCount(dailyCount.getCount() + status.getValue());
+                emailDailyCountRepository.save(dailyCount);
+            }
+        }
+    }
+}
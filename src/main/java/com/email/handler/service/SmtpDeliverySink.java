@@ -0,0 +1,49 @@
+package com.email.handler.service;
+
+import com.email.handler.model.EmailMessage;
+import com.email.handler.pipeline.DownstreamLimiter;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.email.handler.pipeline.DownstreamLimiter.Downstream.SMTP;
+
+/**
+ * Forwards through the SMTP relay on the calling stage worker, one transaction per email.
+ */
+class SmtpDeliverySink implements DeliverySink {
+
+    private final EmailForwardingService emailForwardingService;
+    private final DownstreamLimiter downstreamLimiter;
+
+    SmtpDeliverySink(EmailForwardingService emailForwardingService, DownstreamLimiter downstreamLimiter) {
+        this.emailForwardingService = emailForwardingService;
+        this.downstreamLimiter = downstreamLimiter;
+    }
+
+    @Override
+    public String getName() {
+        return "SMTP";
+    }
+
+    @Override
+    public CompletableFuture<String> deliver(EmailMessage email, boolean transcriptsToFollow) {
+        try {
+            return CompletableFuture.completedFuture(
+                downstreamLimiter.call(SMTP, () -> emailForwardingService.forwardEmail(email, transcriptsToFollow)));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> deliverFollowUp(EmailMessage email) {
+        try {
+            // Emails forwarded before sinks were tracked only know the id they went out with
+            String forwardedMessageId = email.getDeliveries().getOrDefault(getName(), email.getForwardedMessageId());
+            downstreamLimiter.run(SMTP, () -> emailForwardingService.sendTranscriptFollowUp(email, forwardedMessageId));
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
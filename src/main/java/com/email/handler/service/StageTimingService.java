@@ -0,0 +1,170 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.EmailMessage;
+import com.email.handler.model.EmailStageTiming;
+import com.email.handler.repository.EmailStageTimingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Per-email timing ledger. Pipeline workers only append to an in-memory buffer;
+ * a scheduled flush writes the entries in batched inserts, so recording a stage
+ * never costs the hot path a database round trip. When the database falls behind
+ * and the buffer is full, new entries are dropped and counted rather than queued.
+ */
+@Service
+public class StageTimingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StageTimingService.class);
+
+    public static final String FETCH = "fetch";
+    public static final String DEDUP = "dedup";
+    public static final String CONVERSION = "conversion";
+    public static final String FORWARDING = "forwarding";
+    public static final String FOLLOW_UP = "follow-up";
+    public static final String TOTAL = "total";
+
+    @Autowired
+    private EmailHandlerProperties properties;
+
+    @Autowired
+    private EmailStageTimingRepository emailStageTimingRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ConcurrentLinkedQueue<EmailStageTiming> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+
+    /**
+     * Records a stage of the email that started at the given time and ends now.
+     */
+    public void record(EmailMessage email, String stage, String detail, LocalDateTime startedAt) {
+        record(email.getMessageId(), stage, detail, startedAt, LocalDateTime.now());
+    }
+
+    public void record(String messageId, String stage, String detail, LocalDateTime startedAt, LocalDateTime endedAt) {
+        if (!getTimingLedger().isEnabled() || messageId == null || startedAt == null) {
+            return;
+        }
+        if (buffered.incrementAndGet() > getTimingLedger().getMaxBuffered()) {
+            buffered.decrementAndGet();
+            droppedCount.increment();
+            return;
+        }
+        buffer.add(new EmailStageTiming(messageId, stage, detail, startedAt, endedAt));
+    }
+
+    /**
+     * Records the whole run of an email, from fetch (or retry) to its final status.
+     */
+    public void recordTotal(EmailMessage email, String finalStatus) {
+        record(email, TOTAL, finalStatus, email.getFetchedAt());
+    }
+
+    @Scheduled(fixedDelayString = "#{emailHandlerProperties.processing.timingLedger.flushInterval}")
+    public void flush() {
+        int batchSize = getTimingLedger().getBatchSize();
+        int written = 0;
+        try {
+            while (!buffer.isEmpty()) {
+                List<EmailStageTiming> batch = new ArrayList<>(batchSize);
+                EmailStageTiming timing;
+                while (batch.size() < batchSize && (timing = buffer.poll()) != null) {
+                    batch.add(timing);
+                }
+                buffered.addAndGet(-batch.size());
+
+                transactionTemplate.executeWithoutResult(status -> emailStageTimingRepository.saveAll(batch));
+                written += batch.size();
+            }
+        } catch (Exception e) {
+            // The entries of the failed batch are lost; timings are diagnostics, not state
+            logger.error("Error writing stage timings: {}", e.getMessage(), e);
+        }
+
+        if (written > 0) {
+            writtenCount.add(written);
+            logger.debug("Wrote {} stage timings", written);
+        }
+    }
+
+    /**
+     * One page of the slowest runs that ended inside the window, ordered by total
+     * duration. Pass the duration and id of the last entry of a page to get the next.
+     */
+    public List<EmailStageTiming> findSlowest(LocalDateTime from, LocalDateTime to, Long afterDuration, Long afterId,
+                                              int limit) {
+        return emailStageTimingRepository.findSlowest(
+            TOTAL,
+            from,
+            to,
+            afterDuration != null ? afterDuration : Long.MAX_VALUE,
+            afterId != null ? afterId : Long.MAX_VALUE,
+            PageRequest.of(0, limit)
+        );
+    }
+
+    /**
+     * Stage entries of each run, keyed by the id of its total entry. Only entries
+     * inside the run are included, so earlier attempts of a retried email stay apart.
+     */
+    public Map<Long, List<EmailStageTiming>> findBreakdown(List<EmailStageTiming> runs) {
+        Map<Long, List<EmailStageTiming>> breakdown = new LinkedHashMap<>();
+        if (runs.isEmpty()) {
+            return breakdown;
+        }
+
+        Map<String, List<EmailStageTiming>> byMessage = new HashMap<>();
+        for (EmailStageTiming stage : emailStageTimingRepository.findByMessageIdInAndStageNotOrderByStartedAt(
+                runs.stream().map(EmailStageTiming::getMessageId).collect(Collectors.toSet()), TOTAL)) {
+            byMessage.computeIfAbsent(stage.getMessageId(), messageId -> new ArrayList<>()).add(stage);
+        }
+
+        for (EmailStageTiming run : runs) {
+            breakdown.put(run.getId(), byMessage.getOrDefault(run.getMessageId(), List.of()).stream()
+                .filter(stage -> !stage.getStartedAt().isBefore(run.getStartedAt())
+                    && !stage.getEndedAt().isAfter(run.getEndedAt()))
+                .toList());
+        }
+        return breakdown;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (droppedCount.sum() > 0) {
+            logger.warn("Dropped {} stage timings because the buffer was full", droppedCount.sum());
+        }
+    }
+
+    private EmailHandlerProperties.TimingLedger getTimingLedger() {
+        return properties.getProcessing().getTimingLedger();
+    }
+
+    public int getBufferedCount() { return buffered.get(); }
+
+    public long getDroppedCount() { return droppedCount.sum(); }
+
+    public long getWrittenCount() { return writtenCount.sum(); }
+}
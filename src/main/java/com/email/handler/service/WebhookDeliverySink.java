@@ -0,0 +1,184 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.EmailMessage;
+import com.email.handler.pipeline.PipelineMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POSTs JSON records to an HTTP endpoint in batches. Records are serialized by the
+ * stage worker that delivers them and queued; a single sender thread posts a batch
+ * once batch-size records are waiting or the oldest has waited linger ms. Each
+ * email's future completes with the outcome of the request that carried it.
+ */
+class WebhookDeliverySink implements DeliverySink {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookDeliverySink.class);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final EmailHandlerProperties.Webhook webhook;
+    private final RestTemplate restTemplate;
+    private final PipelineMetrics pipelineMetrics;
+    private final List<Pending> pending = new ArrayList<>();
+    private final Thread sender;
+    private boolean stopping;
+
+    WebhookDeliverySink(EmailHandlerProperties.Webhook webhook, RestTemplate restTemplate,
+                        PipelineMetrics pipelineMetrics) {
+        if (webhook.getUrl() == null || webhook.getUrl().isBlank()) {
+            throw new IllegalStateException("email.handler.delivery.webhook.url is required for the WEBHOOK sink");
+        }
+        this.webhook = webhook;
+        this.restTemplate = restTemplate;
+        this.pipelineMetrics = pipelineMetrics;
+        this.sender = Thread.ofPlatform().name("webhook-sender").daemon(true).start(this::sendBatches);
+    }
+
+    @Override
+    public String getName() {
+        return "WEBHOOK";
+    }
+
+    @Override
+    public CompletableFuture<String> deliver(EmailMessage email, boolean transcriptsToFollow) {
+        return enqueue(DeliveryRecords.email(email, transcriptsToFollow)).thenApply(sent -> email.getMessageId());
+    }
+
+    @Override
+    public CompletableFuture<Void> deliverFollowUp(EmailMessage email) {
+        return enqueue(DeliveryRecords.followUp(email));
+    }
+
+    private CompletableFuture<Void> enqueue(Map<String, Object> record) {
+        byte[] json;
+        try {
+            json = DeliveryRecords.OBJECT_MAPPER.writeValueAsBytes(record);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Pending entry = new Pending(json, System.nanoTime(), new CompletableFuture<>());
+        synchronized (this) {
+            if (stopping) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Webhook sink is shut down"));
+            }
+            pending.add(entry);
+            // The sender waits without a timeout while the queue is empty
+            if (pending.size() == 1 || pending.size() >= webhook.getBatchSize()) {
+                notifyAll();
+            }
+        }
+        return entry.sent();
+    }
+
+    private void sendBatches() {
+        try {
+            List<Pending> batch;
+            while ((batch = nextBatch()) != null) {
+                post(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for a full batch or for the oldest record to reach the linger time. On
+     * shutdown whatever is queued goes out without waiting; returns null once drained.
+     */
+    private synchronized List<Pending> nextBatch() throws InterruptedException {
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(webhook.getLinger());
+        while (true) {
+            if (pending.isEmpty()) {
+                if (stopping) {
+                    return null;
+                }
+                wait();
+                continue;
+            }
+            long waited = System.nanoTime() - pending.get(0).queuedAt();
+            if (pending.size() >= webhook.getBatchSize() || waited >= lingerNanos || stopping) {
+                List<Pending> head = pending.subList(0, Math.min(pending.size(), webhook.getBatchSize()));
+                List<Pending> batch = new ArrayList<>(head);
+                head.clear();
+                return batch;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, lingerNanos - waited);
+        }
+    }
+
+    private void post(List<Pending> batch) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        boolean ndjson = webhook.getFormat() == EmailHandlerProperties.WebhookFormat.NDJSON;
+        if (!ndjson) {
+            body.write('[');
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0 && !ndjson) {
+                body.write(',');
+            }
+            body.writeBytes(batch.get(i).json());
+            if (ndjson) {
+                body.write('\n');
+            }
+        }
+        if (!ndjson) {
+            body.write(']');
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON);
+        if (webhook.getAuthorization() != null && !webhook.getAuthorization().isBlank()) {
+            headers.set(HttpHeaders.AUTHORIZATION, webhook.getAuthorization());
+        }
+
+        Timer.Sample sample = pipelineMetrics.start();
+        boolean posted = false;
+        try {
+            restTemplate.exchange(webhook.getUrl(), HttpMethod.POST, new HttpEntity<>(body.toByteArray(), headers), Void.class);
+            posted = true;
+        } catch (Exception e) {
+            logger.error("Webhook batch of {} records failed: {}", batch.size(), e.getMessage());
+            batch.forEach(entry -> entry.sent().completeExceptionally(e));
+        } finally {
+            pipelineMetrics.stop(sample, PipelineMetrics.WEBHOOK_POST, posted,
+                "size", PipelineMetrics.sizeBucket(body.size()));
+        }
+        if (posted) {
+            logger.debug("Posted {} records ({} bytes) to the webhook", batch.size(), body.size());
+            batch.forEach(entry -> entry.sent().complete(null));
+        }
+    }
+
+    /**
+     * Sends what is still queued and stops the sender.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            stopping = true;
+            notifyAll();
+        }
+        try {
+            sender.join(webhook.getTimeout() + webhook.getLinger());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Pending(byte[] json, long queuedAt, CompletableFuture<Void> sent) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.email.handler.load;
+
+import com.icegreen.greenmail.user.GreenMailUser;
+import jakarta.activation.DataHandler;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.util.ByteArrayDataSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeds a mailbox with synthetic messages. Each message is text-only, carries a
+ * document attachment, or carries an audio attachment that needs conversion,
+ * according to the configured mix; a share of deliveries repeats the Message-ID
+ * of an earlier message, which the handler must skip as a duplicate.
+ */
+class LoadGenerator {
+
+    private final GreenMailUser mailbox;
+    private final double mediaRatio;
+    private final double documentRatio;
+    private final double duplicateRatio;
+    private final byte[] attachment;
+    private final Random random;
+    private final Session session = Session.getInstance(new Properties());
+
+    private int duplicatesSeeded;
+
+    LoadGenerator(GreenMailUser mailbox, double mediaRatio, double documentRatio, double duplicateRatio,
+                  int attachmentKb, long seed) {
+        this.mailbox = mailbox;
+        this.mediaRatio = mediaRatio;
+        this.documentRatio = documentRatio;
+        this.duplicateRatio = duplicateRatio;
+        this.random = new Random(seed);
+        this.attachment = new byte[attachmentKb * 1024];
+        random.nextBytes(attachment);
+    }
+
+    /**
+     * Delivers count messages and returns the Message-IDs of the distinct ones,
+     * each of which should be forwarded exactly once.
+     */
+    Set<String> seed(String runId, int count) throws MessagingException {
+        Set<String> expected = new LinkedHashSet<>();
+        List<String> delivered = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String messageId;
+            if (!delivered.isEmpty() && random.nextDouble() < duplicateRatio) {
+                messageId = delivered.get(random.nextInt(delivered.size()));
+                duplicatesSeeded++;
+            } else {
+                messageId = "<" + i + "." + runId + "@load.test>";
+                expected.add(messageId);
+            }
+            delivered.add(messageId);
+            mailbox.deliver(buildMessage(messageId, runId, i));
+        }
+        return expected;
+    }
+
+    private MimeMessage buildMessage(String messageId, String runId, int index) throws MessagingException {
+        MimeMessage message = new MimeMessage(session) {
+            @Override
+            protected void updateMessageID() throws MessagingException {
+                setHeader("Message-ID", messageId);
+            }
+        };
+        message.setFrom("sender" + (index % 50) + "@load.test");
+        message.setRecipients(MimeMessage.RecipientType.TO, mailbox.getEmail());
+        message.setSubject("Load " + runId + " " + messageId);
+
+        String text = "Load test message " + index + ".\n" + "Lorem ipsum dolor sit amet.\n".repeat(40);
+        double kind = random.nextDouble();
+        if (kind < mediaRatio) {
+            message.setContent(withAttachment(text, "recording-" + index + ".mp3", "audio/mpeg"));
+        } else if (kind < mediaRatio + documentRatio) {
+            message.setContent(withAttachment(text, "document-" + index + ".pdf", "application/pdf"));
+        } else {
+            message.setText(text);
+        }
+        message.saveChanges();
+        return message;
+    }
+
+    private MimeMultipart withAttachment(String text, String filename, String contentType) throws MessagingException {
+        MimeMultipart multipart = new MimeMultipart("mixed");
+        MimeBodyPart textPart = new MimeBodyPart();
+        textPart.setText(text);
+        multipart.addBodyPart(textPart);
+
+        MimeBodyPart attachmentPart = new MimeBodyPart();
+        attachmentPart.setDataHandler(new DataHandler(new ByteArrayDataSource(attachment, contentType)));
+        attachmentPart.setFileName(filename);
+        attachmentPart.setDisposition(MimeBodyPart.ATTACHMENT);
+        multipart.addBodyPart(attachmentPart);
+        return multipart;
+    }
+
+    int getDuplicatesSeeded() { return duplicatesSeeded; }
+}
@@ -0,0 +1,239 @@
+package com.email.handler.load;
+
+import com.email.handler.model.EmailStageTiming;
+import com.email.handler.model.ProcessedEmail;
+import com.email.handler.pipeline.EmailDispatcher;
+import com.email.handler.repository.EmailStageTimingRepository;
+import com.email.handler.repository.ProcessedEmailRepository;
+import com.email.handler.service.StageTimingService;
+import com.icegreen.greenmail.user.GreenMailUser;
+import com.icegreen.greenmail.util.DummySSLSocketFactory;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test of the real pipeline against an embedded IMAP/SMTP server
+ * and a stub conversion API, all on the loopback interface. Seeds the polled
+ * mailbox while the handler runs, waits until every distinct message has been
+ * forwarded, and reports throughput, per-stage latency percentiles (from the
+ * stage timing ledger), peak heap and duplicate/missing forwards.
+ * <p>
+ * Tagged "load", which the regular test run excludes; execute with
+ * {@code mvn -Pload test -Dtest=PipelineLoadBenchmark} and tune it with system properties:
+ * {@code load.messages}, {@code load.mediaRatio}, {@code load.documentRatio},
+ * {@code load.attachmentKb}, {@code load.duplicateRatio}, {@code load.conversionLatency},
+ * {@code load.conversionErrorRate}, {@code load.timeout} (seconds) and {@code load.minRate},
+ * which fails the run below the given messages/sec.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("load")
+class PipelineLoadBenchmark {
+
+    private static final int MESSAGES = Integer.getInteger("load.messages", 2_000);
+    private static final double MEDIA_RATIO = doubleProperty("load.mediaRatio", 0.2);
+    private static final double DOCUMENT_RATIO = doubleProperty("load.documentRatio", 0.2);
+    private static final int ATTACHMENT_KB = Integer.getInteger("load.attachmentKb", 256);
+    private static final double DUPLICATE_RATIO = doubleProperty("load.duplicateRatio", 0.02);
+    private static final long CONVERSION_LATENCY = Long.getLong("load.conversionLatency", 200);
+    private static final double CONVERSION_ERROR_RATE = doubleProperty("load.conversionErrorRate", 0.01);
+    private static final long TIMEOUT_SECONDS = Long.getLong("load.timeout", 600);
+    private static final double MIN_RATE = doubleProperty("load.minRate", 0);
+
+    private static final String SOURCE = "inbox@load.test";
+    private static final String FORWARDER = "forwarder@load.test";
+    private static final String SINK = "sink@sink.test";
+    private static final String PASSWORD = "secret";
+
+    private static final GreenMail greenMail;
+    private static final StubConversionServer conversionServer;
+
+    static {
+        // Trust GreenMail's self-signed IMAPS certificate; must run before the first SSL socket
+        Security.setProperty("ssl.SocketFactory.provider", DummySSLSocketFactory.class.getName());
+
+        greenMail = new GreenMail(new ServerSetup[] {
+            ServerSetupTest.SMTP.dynamicPort(), ServerSetupTest.IMAPS.dynamicPort()
+        });
+        greenMail.start();
+        greenMail.setUser(SOURCE, SOURCE, PASSWORD);
+        greenMail.setUser(FORWARDER, FORWARDER, PASSWORD);
+        greenMail.setUser(SINK, SINK, PASSWORD);
+
+        conversionServer = new StubConversionServer(CONVERSION_LATENCY, CONVERSION_ERROR_RATE);
+        try {
+            conversionServer.start();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to start the stub conversion server", e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void mailServers(DynamicPropertyRegistry registry) {
+        registry.add("email.handler.imap.host", () -> "127.0.0.1");
+        registry.add("email.handler.imap.port", () -> greenMail.getImaps().getPort());
+        registry.add("email.handler.imap.username", () -> SOURCE);
+        registry.add("email.handler.imap.password", () -> PASSWORD);
+        registry.add("email.handler.imap.ssl-enabled", () -> true);
+        registry.add("email.handler.imap.fetch-interval", () -> 1000);
+        registry.add("email.handler.imap.adaptive-fetch.min-interval", () -> 100);
+        registry.add("email.handler.smtp.host", () -> "127.0.0.1");
+        registry.add("email.handler.smtp.port", () -> greenMail.getSmtp().getPort());
+        registry.add("email.handler.smtp.username", () -> FORWARDER);
+        registry.add("email.handler.smtp.password", () -> PASSWORD);
+        registry.add("email.handler.smtp.starttls-enabled", () -> false);
+        registry.add("email.handler.smtp.to-address", () -> SINK);
+        registry.add("email.handler.conversion-api.base-url", conversionServer::getBaseUrl);
+        registry.add("email.handler.duplicate-prevention.enabled", () -> true);
+        registry.add("email.handler.processing.spool-directory", () -> "target/load-spool");
+        registry.add("email.handler.retention.enabled", () -> false);
+    }
+
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private StageTimingService stageTimingService;
+
+    @Autowired
+    private EmailStageTimingRepository emailStageTimingRepository;
+
+    @Autowired
+    private ProcessedEmailRepository processedEmailRepository;
+
+    @AfterAll
+    static void stopServers() {
+        conversionServer.close();
+        greenMail.stop();
+    }
+
+    @Test
+    void drainSeededMailbox() throws Exception {
+        GreenMailUser source = greenMail.getManagers().getUserManager().getUser(SOURCE);
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+
+        // The poller positions its cursor on the first message it sees; let it find one before the load
+        new LoadGenerator(source, 0, 0, 0, 1, 1).seed("prime-" + runId, 1);
+        waitForForwards(1, 60);
+
+        LoadGenerator generator = new LoadGenerator(source, MEDIA_RATIO, DOCUMENT_RATIO, DUPLICATE_RATIO, ATTACHMENT_KB, 42);
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        Set<String> expected = generator.seed(runId, MESSAGES);
+        long seededMillis = (System.nanoTime() - start) / 1_000_000;
+
+        boolean completed = waitForForwards(1 + expected.size(), TIMEOUT_SECONDS);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        // Give duplicates still in flight the chance to show up as extra forwards
+        waitForIdle(10);
+
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        Map<String, Integer> forwards = new HashMap<>();
+        String prefix = "Fwd: Load " + runId + " ";
+        for (MimeMessage message : greenMail.getReceivedMessagesForDomain("@sink.test")) {
+            String subject = message.getSubject();
+            if (subject != null && subject.startsWith(prefix)) {
+                forwards.merge(subject.substring(prefix.length()), 1, Integer::sum);
+            }
+        }
+        long missing = expected.stream().filter(id -> !forwards.containsKey(id)).count();
+        long duplicateForwards = forwards.values().stream().filter(count -> count > 1).count();
+        long failed = processedEmailRepository.findAll().stream()
+            .filter(email -> email.getStatus() == ProcessedEmail.ProcessingStatus.FAILED)
+            .count();
+
+        double rate = forwards.size() * 1000.0 / Math.max(elapsedMillis, 1);
+        System.out.printf("Load run %s: %d messages seeded in %d ms (%d distinct, %d duplicates, %.0f%% media, %.0f%% documents, %d KB attachments)%n",
+            runId, MESSAGES, seededMillis, expected.size(), generator.getDuplicatesSeeded(),
+            MEDIA_RATIO * 100, DOCUMENT_RATIO * 100, ATTACHMENT_KB);
+        System.out.printf("Forwarded %d distinct messages in %d ms: %.1f messages/sec%s%n",
+            forwards.size(), elapsedMillis, rate, completed ? "" : " (timed out)");
+        System.out.printf("Missing forwards: %d, duplicate forwards: %d, failed: %d%n", missing, duplicateForwards, failed);
+        System.out.printf("Conversion stub: %d requests, %d errors, %d MB received (latency %d ms)%n",
+            conversionServer.getRequests(), conversionServer.getErrors(),
+            conversionServer.getBytesReceived() / (1024 * 1024), CONVERSION_LATENCY);
+        System.out.printf("Peak heap: %d MB%n", peakHeap / (1024 * 1024));
+        printStageLatencies(runId);
+
+        assertEquals(0, missing, missing + " messages were never forwarded");
+        assertTrue(completed, "Not every message was forwarded within " + TIMEOUT_SECONDS + " s");
+        assertTrue(duplicateForwards == 0, duplicateForwards + " messages were forwarded more than once");
+        assertTrue(rate >= MIN_RATE, String.format("Throughput %.1f messages/sec is below %.1f", rate, MIN_RATE));
+    }
+
+    private boolean waitForForwards(int count, long timeoutSeconds) throws Exception {
+        long deadline = System.currentTimeMillis() + timeoutSeconds * 1000;
+        GreenMailUser sink = greenMail.getManagers().getUserManager().getUser(SINK);
+        while (System.currentTimeMillis() < deadline) {
+            if (greenMail.getManagers().getImapHostManager().getInbox(sink).getMessageCount() >= count) {
+                return true;
+            }
+            Thread.sleep(250);
+        }
+        return false;
+    }
+
+    private void waitForIdle(long timeoutSeconds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutSeconds * 1000;
+        while (emailDispatcher.getInFlightCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(250);
+        }
+    }
+
+    private void printStageLatencies(String runId) {
+        stageTimingService.flush();
+        Map<String, List<Long>> byStage = new TreeMap<>();
+        for (EmailStageTiming timing : emailStageTimingRepository.findAll()) {
+            if (timing.getMessageId().contains("." + runId + "@")) {
+                byStage.computeIfAbsent(timing.getStage(), stage -> new ArrayList<>()).add(timing.getDurationMillis());
+            }
+        }
+
+        System.out.printf("%-12s %8s %8s %8s %8s %8s%n", "stage", "count", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        byStage.forEach((stage, durations) -> {
+            durations.sort(null);
+            System.out.printf("%-12s %8d %8d %8d %8d %8d%n", stage, durations.size(),
+                percentile(durations, 0.50), percentile(durations, 0.95), percentile(durations, 0.99),
+                durations.get(durations.size() - 1));
+        });
+    }
+
+    private static long percentile(List<Long> sorted, double quantile) {
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}
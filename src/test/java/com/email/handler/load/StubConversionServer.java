@@ -0,0 +1,93 @@
+package com.email.handler.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the conversion API. Every request waits the configured
+ * latency and then either returns a transcript or, at the configured error rate,
+ * a 500. Requests are served on virtual threads so the stub never becomes the
+ * concurrency limit under test.
+ */
+class StubConversionServer implements AutoCloseable {
+
+    static final String ENDPOINT = "/api/audio-video/convert";
+
+    private final long latencyMillis;
+    private final double errorRate;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    StubConversionServer(long latencyMillis, double errorRate) {
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+    }
+
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(ENDPOINT, this::convert);
+        server.start();
+    }
+
+    private void convert(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (InputStream body = exchange.getRequestBody()) {
+            bytesReceived.add(body.transferTo(OutputStream.nullOutputStream()));
+        }
+
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        byte[] response;
+        int status;
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            errors.increment();
+            status = 500;
+            response = "{\"error\":\"stub failure\"}".getBytes(StandardCharsets.UTF_8);
+        } else {
+            status = 200;
+            response = "{\"transcript\":\"Stub transcript of the recording.\"}".getBytes(StandardCharsets.UTF_8);
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    long getRequests() { return requests.sum(); }
+
+    long getErrors() { return errors.sum(); }
+
+    long getBytesReceived() { return bytesReceived.sum(); }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.email.handler.pipeline;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares a pipeline stage on pooled platform threads with the same stage on
+ * virtual threads for blocking, I/O-bound work, and fails if virtual threads are
+ * slower beyond a small margin. Tagged "load", which the regular test run excludes;
+ * execute with {@code mvn -Pload test -Dtest=ExecutionModeBenchmark}.
+ */
+@Tag("load")
+class ExecutionModeBenchmark {
+
+    private static final int EMAILS = 5_000;
+    private static final long IO_LATENCY_MILLIS = 50;
+    private static final int PLATFORM_WORKERS = 20;
+    private static final int VIRTUAL_WORKERS = 5_000;
+    // Slack for timer and scheduling noise; with this workload virtual threads should win by far
+    private static final double MAX_VIRTUAL_SLOWDOWN = 1.1;
+
+    @Test
+    void compareExecutionModes() throws Exception {
+        // Warm up both paths once so class loading and JIT do not skew the first run
+        run("warmup-platform", PLATFORM_WORKERS, Thread.ofPlatform().daemon(true).factory(), 500);
+        run("warmup-virtual", VIRTUAL_WORKERS, Thread.ofVirtual().factory(), 500);
+
+        Result platform = run("platform", PLATFORM_WORKERS, Thread.ofPlatform().daemon(true).factory(), EMAILS);
+        Result virtual = run("virtual", VIRTUAL_WORKERS, Thread.ofVirtual().factory(), EMAILS);
+
+        System.out.println(platform);
+        System.out.println(virtual);
+        System.out.printf("Virtual threads speedup: %.1fx%n", platform.elapsedMillis / (double) virtual.elapsedMillis);
+
+        assertTrue(virtual.elapsedMillis <= platform.elapsedMillis * MAX_VIRTUAL_SLOWDOWN,
+            String.format("Virtual threads took %d ms, platform threads %d ms", virtual.elapsedMillis, platform.elapsedMillis));
+    }
+
+    private Result run(String name, int workers, ThreadFactory threadFactory, int emails) throws Exception {
+        PipelineStage stage = new PipelineStage(name, workers, emails, threadFactory);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        stage.start();
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(emails);
+        for (int i = 0; i < emails; i++) {
+            futures.add(stage.submit(() -> {
+                // Stands in for an SMTP send, conversion request or JDBC round trip
+                Thread.sleep(IO_LATENCY_MILLIS);
+                return null;
+            }));
+        }
+        long peakHeap = runtime.totalMemory() - runtime.freeMemory();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        stage.stop();
+
+        return new Result(name, workers, emails, elapsedMillis, Math.max(peakHeap - heapBefore, 0));
+    }
+
+    private record Result(String name, int workers, int emails, long elapsedMillis, long heapDeltaBytes) {
+        @Override
+        public String toString() {
+            return String.format("%-8s workers=%5d emails=%d elapsed=%6d ms throughput=%8.1f emails/s heapDelta=%d KB",
+                name, workers, emails, elapsedMillis, emails * 1000.0 / Math.max(elapsedMillis, 1), heapDeltaBytes / 1024);
+        }
+    }
+}
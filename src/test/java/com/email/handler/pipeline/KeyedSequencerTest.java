@@ -0,0 +1,118 @@
+package com.email.handler.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyedSequencerTest {
+
+    private static final int KEYS = 6;
+    private static final int TASKS_PER_KEY = 200;
+
+    private final KeyedSequencer sequencer = new KeyedSequencer();
+    private final ExecutorService workers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+        sequencer.shutdown();
+    }
+
+    @Test
+    void runsEachKeyInTicketOrderAndKeysInParallel() throws InterruptedException {
+        Map<String, List<Integer>> runs = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> runningPerKey = new ConcurrentHashMap<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger overlapsWithinKey = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(KEYS * TASKS_PER_KEY);
+
+        // One producer thread per key takes the tickets in order; the steps run on a
+        // shared pool in whatever order the pool picks them up
+        List<Thread> producers = new ArrayList<>();
+        for (int k = 0; k < KEYS; k++) {
+            String key = "key-" + k;
+            runs.put(key, Collections.synchronizedList(new ArrayList<>()));
+            runningPerKey.put(key, new AtomicInteger());
+            Random random = new Random(k);
+            producers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < TASKS_PER_KEY; i++) {
+                    int index = i;
+                    KeyedSequencer.Ticket ticket = sequencer.enter(key);
+                    boolean slow = random.nextInt(10) == 0;
+                    workers.execute(() -> ticket.runInTurn(() -> {
+                        if (runningPerKey.get(key).incrementAndGet() > 1) {
+                            overlapsWithinKey.incrementAndGet();
+                        }
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            runs.get(key).add(index);
+                            if (slow) {
+                                Thread.sleep(1);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            running.decrementAndGet();
+                            runningPerKey.get(key).decrementAndGet();
+                            ticket.release();
+                            done.countDown();
+                        }
+                    }));
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS), "all steps ran");
+        List<Integer> expected = IntStream.range(0, TASKS_PER_KEY).boxed().toList();
+        for (Map.Entry<String, List<Integer>> entry : runs.entrySet()) {
+            assertEquals(expected, entry.getValue(), entry.getKey());
+        }
+        assertEquals(0, overlapsWithinKey.get());
+        assertTrue(maxRunning.get() > 1, "steps of different keys overlapped");
+        assertEquals(0, sequencer.getActiveKeys());
+    }
+
+    @Test
+    void aHeldKeyDoesNotHoldUpOtherKeys() throws InterruptedException {
+        CountDownLatch otherKeyRan = new CountDownLatch(1);
+        CountDownLatch waiterRan = new CountDownLatch(1);
+
+        KeyedSequencer.Ticket held = sequencer.enter("slow");
+        KeyedSequencer.Ticket waiter = sequencer.enter("slow");
+        KeyedSequencer.Ticket other = sequencer.enter("fast");
+
+        held.runInTurn(() -> { });
+        // Not released yet, so this is parked without taking a thread
+        waiter.runInTurn(waiterRan::countDown);
+        other.runInTurn(otherKeyRan::countDown);
+
+        assertTrue(otherKeyRan.await(1, TimeUnit.SECONDS));
+        assertEquals(1, waiterRan.getCount());
+        assertEquals(1, sequencer.getDeferredCount());
+
+        held.release();
+        assertTrue(waiterRan.await(5, TimeUnit.SECONDS));
+        waiter.release();
+        other.release();
+        assertEquals(0, sequencer.getActiveKeys());
+    }
+}
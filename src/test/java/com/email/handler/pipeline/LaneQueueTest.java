@@ -0,0 +1,138 @@
+package com.email.handler.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LaneQueueTest {
+
+    private record Task(Lane lane, int index, long enqueuedAt) implements LaneQueue.Entry {
+        Task(Lane lane, int index) {
+            this(lane, index, System.nanoTime());
+        }
+
+        @Override
+        public Lane getLane() { return lane; }
+
+        @Override
+        public long getEnqueuedAt() { return enqueuedAt; }
+    }
+
+    @Test
+    void servesExpressAndMediaInTheConfiguredRatio() throws InterruptedException {
+        LaneQueue<Task> queue = new LaneQueue<>(100, 3, 0);
+        for (int i = 0; i < 30; i++) {
+            queue.put(new Task(Lane.EXPRESS, i));
+        }
+        for (int i = 0; i < 10; i++) {
+            queue.put(new Task(Lane.MEDIA, i));
+        }
+
+        List<Lane> order = drain(queue, 40);
+
+        // Three express, then one media, for as long as both lanes have work
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i % 4 == 3 ? Lane.MEDIA : Lane.EXPRESS, order.get(i), "task " + i);
+        }
+    }
+
+    @Test
+    void keepsFifoOrderWithinEachLane() throws InterruptedException {
+        LaneQueue<Task> queue = new LaneQueue<>(100, 2, 0);
+        for (int i = 0; i < 20; i++) {
+            queue.put(new Task(i % 3 == 0 ? Lane.MEDIA : Lane.EXPRESS, i));
+        }
+
+        int lastExpress = -1;
+        int lastMedia = -1;
+        Task task;
+        while ((task = queue.poll(0, TimeUnit.MILLISECONDS)) != null) {
+            if (task.lane() == Lane.MEDIA) {
+                assertTrue(task.index() > lastMedia);
+                lastMedia = task.index();
+            } else {
+                assertTrue(task.index() > lastExpress);
+                lastExpress = task.index();
+            }
+        }
+        assertEquals(18, lastMedia);
+        assertEquals(19, lastExpress);
+    }
+
+    @Test
+    void servesAnAgedMediaTaskAheadOfItsTurn() throws InterruptedException {
+        LaneQueue<Task> queue = new LaneQueue<>(100, 1000, 50);
+        Task starved = new Task(Lane.MEDIA, 0, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(60));
+        Task fresh = new Task(Lane.MEDIA, 1);
+        queue.put(starved);
+        queue.put(fresh);
+        for (int i = 0; i < 10; i++) {
+            queue.put(new Task(Lane.EXPRESS, i));
+        }
+
+        // The weight alone would serve a thousand express tasks first
+        assertSame(starved, queue.poll(0, TimeUnit.MILLISECONDS));
+        // The next media task has not waited long enough yet
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Lane.EXPRESS, queue.poll(0, TimeUnit.MILLISECONDS).lane());
+        }
+        assertSame(fresh, queue.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void servesTheOtherLaneWhenOneIsEmpty() throws InterruptedException {
+        LaneQueue<Task> queue = new LaneQueue<>(10, 1, 0);
+        queue.put(new Task(Lane.MEDIA, 0));
+        queue.put(new Task(Lane.MEDIA, 1));
+
+        assertEquals(List.of(Lane.MEDIA, Lane.MEDIA), drain(queue, 2));
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void blocksPutWhileFullUntilATakeFreesASlot() throws Exception {
+        LaneQueue<Task> queue = new LaneQueue<>(3, 4, 0);
+        for (int i = 0; i < 3; i++) {
+            queue.put(new Task(Lane.MEDIA, i));
+        }
+        assertEquals(0, queue.remainingCapacity());
+
+        // The capacity is shared, so an express task waits behind a full media lane too
+        Task express = new Task(Lane.EXPRESS, 0);
+        CompletableFuture<Void> put = CompletableFuture.runAsync(() -> {
+            try {
+                queue.put(express);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThrows(TimeoutException.class, () -> put.get(200, TimeUnit.MILLISECONDS));
+        assertFalse(put.isDone());
+        assertEquals(3, queue.size());
+
+        assertEquals(Lane.MEDIA, queue.poll(0, TimeUnit.MILLISECONDS).lane());
+        put.get(5, TimeUnit.SECONDS);
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.size(Lane.EXPRESS));
+        assertSame(express, queue.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    private static List<Lane> drain(LaneQueue<Task> queue, int count) throws InterruptedException {
+        List<Lane> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            order.add(queue.poll(0, TimeUnit.MILLISECONDS).lane());
+        }
+        return order;
+    }
+}
@@ -0,0 +1,61 @@
+package com.email.handler.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveIngestionProgressTest {
+
+    @Test
+    void commitsOnlyPastTheOldestUnfinishedMessage() {
+        ArchiveIngestionService.Progress progress = new ArchiveIngestionService.Progress(null);
+        long first = progress.start("a");
+        long second = progress.start("b");
+        long third = progress.start("c");
+
+        progress.finish(third);
+        progress.finish(second);
+        assertNull(progress.getCommitted());
+        assertEquals(0, progress.getCompleted());
+
+        progress.finish(first);
+        assertEquals("c", progress.getCommitted());
+        assertEquals(3, progress.getCompleted());
+    }
+
+    @Test
+    void resumesFromTheLastContiguousCheckpoint() {
+        ArchiveIngestionService.Progress progress = new ArchiveIngestionService.Progress("start");
+        long first = progress.start("a");
+        long second = progress.start("b");
+        long third = progress.start("c");
+        progress.start("d");
+
+        progress.finish(first);
+        progress.finish(third);
+        assertEquals("a", progress.getCommitted());
+
+        // Stopped here: resuming from "a" redoes b, c and d, and skips nothing unfinished
+        progress.finish(second);
+        assertEquals("c", progress.getCommitted());
+        assertEquals(3, progress.takeUnsaved());
+        assertEquals(0, progress.takeUnsaved());
+    }
+
+    @Test
+    void awaitsTheLastOpenMessage() throws InterruptedException {
+        ArchiveIngestionService.Progress progress = new ArchiveIngestionService.Progress(null);
+        long first = progress.start("a");
+        long second = progress.start("b");
+        progress.finish(second);
+
+        assertFalse(progress.awaitFinished(10));
+
+        Thread.ofPlatform().start(() -> progress.finish(first));
+        assertTrue(progress.awaitFinished(5000));
+        assertEquals("b", progress.getCommitted());
+    }
+}
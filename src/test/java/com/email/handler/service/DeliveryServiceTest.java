@@ -0,0 +1,145 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.EmailMessage;
+import com.email.handler.pipeline.DownstreamLimiter;
+import com.email.handler.pipeline.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.client.MockServerRestTemplateCustomizer;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class DeliveryServiceTest {
+
+    private static final String URL = "http://webhook.test/emails";
+    private static final String FORWARD_ID = "<forward@relay.test>";
+
+    private final EmailHandlerProperties properties = new EmailHandlerProperties();
+    private final EmailForwardingService emailForwardingService = mock(EmailForwardingService.class);
+    private final MockServerRestTemplateCustomizer webhookServer = new MockServerRestTemplateCustomizer();
+    private final DeliveryService deliveryService = new DeliveryService();
+
+    @BeforeEach
+    void setUp() {
+        properties.getDelivery().getWebhook().setUrl(URL);
+        // Every record goes out on its own, right away
+        properties.getDelivery().getWebhook().setBatchSize(1);
+
+        DownstreamLimiter downstreamLimiter = new DownstreamLimiter();
+        ReflectionTestUtils.setField(downstreamLimiter, "properties", properties);
+        downstreamLimiter.initialize();
+        PipelineMetrics pipelineMetrics = new PipelineMetrics();
+        ReflectionTestUtils.setField(pipelineMetrics, "registry", new SimpleMeterRegistry());
+
+        ReflectionTestUtils.setField(deliveryService, "properties", properties);
+        ReflectionTestUtils.setField(deliveryService, "emailForwardingService", emailForwardingService);
+        ReflectionTestUtils.setField(deliveryService, "downstreamLimiter", downstreamLimiter);
+        ReflectionTestUtils.setField(deliveryService, "pipelineMetrics", pipelineMetrics);
+        ReflectionTestUtils.setField(deliveryService, "restTemplateBuilder", new RestTemplateBuilder(webhookServer));
+    }
+
+    @AfterEach
+    void tearDown() {
+        deliveryService.close();
+    }
+
+    @Test
+    void returnsTheSmtpMessageIdWhateverTheSinkOrder() throws Exception {
+        start(EmailHandlerProperties.DeliverySinkType.WEBHOOK, EmailHandlerProperties.DeliverySinkType.SMTP);
+        server().expect(once(), requestTo(URL)).andRespond(withSuccess());
+        when(emailForwardingService.forwardEmail(any(EmailMessage.class), anyBoolean())).thenReturn(FORWARD_ID);
+        EmailMessage email = WebhookDeliverySinkTest.email("<1@test>");
+
+        String deliveredId = deliveryService.deliver(email, true).get(5, TimeUnit.SECONDS);
+
+        assertEquals(FORWARD_ID, deliveredId);
+        assertEquals(Map.of("WEBHOOK", "<1@test>", "SMTP", FORWARD_ID), email.getDeliveries());
+        server().verify();
+    }
+
+    @Test
+    void retryOnlyDeliversToSinksThatFailed() throws Exception {
+        start(EmailHandlerProperties.DeliverySinkType.SMTP, EmailHandlerProperties.DeliverySinkType.WEBHOOK);
+        server().expect(once(), requestTo(URL)).andRespond(withSuccess());
+        when(emailForwardingService.forwardEmail(any(EmailMessage.class), anyBoolean()))
+            .thenThrow(new MessagingException("relay down"))
+            .thenReturn(FORWARD_ID);
+        EmailMessage email = WebhookDeliverySinkTest.email("<1@test>");
+
+        assertThrows(ExecutionException.class, () -> deliveryService.deliver(email, false).get(5, TimeUnit.SECONDS));
+        // The webhook got it, so only SMTP is left
+        assertEquals(Map.of("WEBHOOK", "<1@test>"), email.getDeliveries());
+
+        // The retry restores the recorded deliveries on a fresh copy of the email
+        EmailMessage retry = WebhookDeliverySinkTest.email("<1@test>");
+        retry.setDeliveries(email.getDeliveries());
+        assertEquals(FORWARD_ID, deliveryService.deliver(retry, false).get(5, TimeUnit.SECONDS));
+
+        assertEquals(Map.of("WEBHOOK", "<1@test>", "SMTP", FORWARD_ID), retry.getDeliveries());
+        verify(emailForwardingService, times(2)).forwardEmail(any(EmailMessage.class), anyBoolean());
+        // No second webhook request
+        server().verify();
+    }
+
+    @Test
+    void followUpSkipsSinksThatAlreadyHaveIt() throws Exception {
+        start(EmailHandlerProperties.DeliverySinkType.SMTP, EmailHandlerProperties.DeliverySinkType.WEBHOOK);
+        server().expect(once(), requestTo(URL)).andRespond(withSuccess());
+        EmailMessage email = WebhookDeliverySinkTest.email("<1@test>");
+        email.setForwardedMessageId(FORWARD_ID);
+        email.setDeliveries(Map.of("SMTP", FORWARD_ID, "WEBHOOK", "<1@test>", "SMTP/follow-up", ""));
+
+        deliveryService.deliverFollowUp(email).get(5, TimeUnit.SECONDS);
+
+        verify(emailForwardingService, never()).sendTranscriptFollowUp(any(EmailMessage.class), anyString());
+        assertEquals("", email.getDeliveries().get("WEBHOOK/follow-up"));
+        server().verify();
+    }
+
+    @Test
+    void smtpFollowUpRefersToTheSmtpForward() throws Exception {
+        start(EmailHandlerProperties.DeliverySinkType.WEBHOOK, EmailHandlerProperties.DeliverySinkType.SMTP);
+        EmailMessage email = WebhookDeliverySinkTest.email("<1@test>");
+        email.setForwardedMessageId(FORWARD_ID);
+        email.setDeliveries(Map.of("SMTP", FORWARD_ID, "WEBHOOK", "<1@test>", "WEBHOOK/follow-up", ""));
+
+        deliveryService.deliverFollowUp(email).get(5, TimeUnit.SECONDS);
+
+        verify(emailForwardingService).sendTranscriptFollowUp(email, FORWARD_ID);
+        verify(emailForwardingService, never()).sendTranscriptFollowUp(any(EmailMessage.class), eq("<1@test>"));
+    }
+
+    private void start(EmailHandlerProperties.DeliverySinkType... sinks) throws Exception {
+        properties.getDelivery().setSinks(List.of(sinks));
+        deliveryService.initialize();
+    }
+
+    private MockRestServiceServer server() {
+        return webhookServer.getServer();
+    }
+}
@@ -0,0 +1,155 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.EmailMessage;
+import com.email.handler.pipeline.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImapEmailServiceBodyTest {
+
+    private static final String MARKER = "\n[cut]";
+    private static final String PLAIN = "Plain rendition";
+    private static final String HTML = "<p>HTML rendition</p>";
+
+    private final EmailHandlerProperties properties = new EmailHandlerProperties();
+    private final ImapEmailService imapEmailService = new ImapEmailService();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        properties.getProcessing().getBody().setTruncationMarker(MARKER);
+        PipelineMetrics pipelineMetrics = new PipelineMetrics();
+        ReflectionTestUtils.setField(pipelineMetrics, "registry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(imapEmailService, "properties", properties);
+        ReflectionTestUtils.setField(imapEmailService, "pipelineMetrics", pipelineMetrics);
+    }
+
+    @Test
+    void usesThePreferredAlternativeOnly() throws Exception {
+        String message = multipart("alternative", "alt",
+            part("text/plain", PLAIN),
+            part("text/html", HTML));
+
+        EmailMessage plain = parse(message);
+        assertEquals(PLAIN, plain.getContent().trim());
+        assertEquals("text/plain", plain.getContentType());
+
+        properties.getProcessing().getBody().setPreferred(EmailHandlerProperties.BodyPreference.HTML);
+        EmailMessage html = parse(message);
+        assertEquals(HTML, html.getContent().trim());
+        assertEquals("text/html", html.getContentType());
+    }
+
+    @Test
+    void judgesNestedRelatedAlternativeByItsLeadingPart() throws Exception {
+        String related = multipart("related", "rel",
+            part("text/html", HTML),
+            "Content-Type: image/png\nContent-ID: <logo>\nContent-Transfer-Encoding: base64\n\niVBORw0KGgo=\n");
+        String message = multipart("alternative", "alt",
+            part("text/plain", PLAIN),
+            related);
+
+        properties.getProcessing().getBody().setPreferred(EmailHandlerProperties.BodyPreference.HTML);
+        EmailMessage html = parse(message);
+        assertEquals(HTML, html.getContent().trim());
+        assertEquals("text/html", html.getContentType());
+        // The inline image has no name, so it is neither body nor attachment
+        assertTrue(html.getAttachments().isEmpty());
+
+        properties.getProcessing().getBody().setPreferred(EmailHandlerProperties.BodyPreference.PLAIN);
+        assertEquals(PLAIN, parse(message).getContent().trim());
+    }
+
+    @Test
+    void fallsBackToTheOtherTextTypeAndThenTheLastAlternative() throws Exception {
+        String htmlOnly = multipart("alternative", "alt",
+            part("text/calendar", "BEGIN:VCALENDAR"),
+            part("text/html", HTML),
+            part("application/pdf", "not really a pdf"));
+        EmailMessage html = parse(htmlOnly);
+        assertEquals(HTML, html.getContent().trim());
+
+        String noText = multipart("alternative", "alt",
+            part("text/calendar", "BEGIN:VCALENDAR"),
+            "Content-Type: text/x-vcard\nContent-Disposition: inline; filename=\"card.vcf\"\n\nBEGIN:VCARD\n");
+        EmailMessage last = parse(noText);
+        assertEquals("", last.getContent());
+        assertEquals(1, last.getAttachments().size());
+        assertEquals("card.vcf", last.getAttachments().get(0).getFilename());
+    }
+
+    @Test
+    void truncatesAtTheCapWithOneMarker() throws Exception {
+        properties.getProcessing().getBody().setMaxChars(100);
+        String message = multipart("mixed", "mix",
+            part("text/plain", "a".repeat(60)),
+            part("text/plain", "b".repeat(20000)),
+            part("text/plain", "c".repeat(60)));
+
+        EmailMessage email = parse(message);
+
+        String content = email.getContent();
+        assertEquals(100 + MARKER.length(), content.length());
+        assertTrue(content.endsWith(MARKER));
+        assertEquals(content.indexOf(MARKER), content.lastIndexOf(MARKER));
+        assertEquals(-1, content.indexOf("cc"));
+        assertEquals("1", email.getTruncatedBodyPart());
+    }
+
+    @Test
+    void keepsABodyOfExactlyTheCap() throws Exception {
+        String body = "d".repeat(98);
+        // The body part ends with CRLF, so its text is exactly 100 characters
+        properties.getProcessing().getBody().setMaxChars(100);
+
+        EmailMessage email = parse("Content-Type: text/plain\n\n" + body + "\n");
+
+        assertEquals(-1, email.getContent().indexOf(MARKER));
+        assertNull(email.getTruncatedBodyPart());
+    }
+
+    @Test
+    void recordsTheTopLevelPartAsTruncated() throws Exception {
+        properties.getProcessing().getBody().setMaxChars(10);
+
+        EmailMessage email = parse("Content-Type: text/plain\n\n" + "e".repeat(50) + "\n");
+
+        assertEquals("e".repeat(10) + MARKER, email.getContent());
+        assertEquals("", email.getTruncatedBodyPart());
+    }
+
+    private EmailMessage parse(String body) throws IOException, MessagingException {
+        String message = "Message-ID: <body@test>\nFrom: sender@example.com\nSubject: body\nMIME-Version: 1.0\n" + body;
+        Path file = Files.createTempFile(directory, "message", ".eml");
+        Files.writeString(file, message.replace("\n", "\r\n"), StandardCharsets.US_ASCII);
+        return imapEmailService.parseSpooledMessage(file.toString());
+    }
+
+    private static String multipart(String subtype, String boundary, String... parts) {
+        StringBuilder message = new StringBuilder("Content-Type: multipart/" + subtype + "; boundary=\"" + boundary + "\"\n\n");
+        for (String part : parts) {
+            message.append("--").append(boundary).append('\n').append(part);
+        }
+        return message.append("--").append(boundary).append("--\n").toString();
+    }
+
+    private static String part(String type, String text) {
+        return "Content-Type: " + type + "; charset=us-ascii\n\n" + text + "\n";
+    }
+}
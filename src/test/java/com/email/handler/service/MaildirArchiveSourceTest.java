@@ -0,0 +1,94 @@
+package com.email.handler.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MaildirArchiveSourceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsCurAndNewInDeliveryOrder() throws IOException {
+        write("cur", "1700000003.M1P1.host:2,S");
+        write("new", "1700000001.M1P1.host");
+        write("cur", "1700000002.M1P1.host:2,RS");
+        write("new", "1700000004.M1P1.host");
+        write("cur", ".hidden");
+
+        List<String> checkpoints = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        readAll(new MaildirArchiveSource(directory, null), checkpoints, contents);
+
+        assertEquals(List.of("1700000001.M1P1.host", "1700000002.M1P1.host",
+            "1700000003.M1P1.host", "1700000004.M1P1.host"), checkpoints);
+        assertEquals("Subject: 1700000002.M1P1.host:2,RS\n\nbody\n", contents.get(1));
+    }
+
+    @Test
+    void resumesAfterCheckpointEvenIfTheMessageMovedToCur() throws IOException {
+        write("new", "1700000001.M1P1.host");
+        write("new", "1700000002.M1P1.host");
+        write("new", "1700000003.M1P1.host");
+        String checkpoint;
+        try (MaildirArchiveSource source = new MaildirArchiveSource(directory, null)) {
+            source.next();
+            checkpoint = source.next().checkpoint();
+        }
+        // A mail client saw the second message in the meantime
+        Files.createDirectories(directory.resolve("cur"));
+        Files.move(directory.resolve("new/1700000002.M1P1.host"), directory.resolve("cur/1700000002.M1P1.host:2,S"));
+
+        List<String> checkpoints = new ArrayList<>();
+        readAll(new MaildirArchiveSource(directory, checkpoint), checkpoints, new ArrayList<>());
+
+        assertEquals(List.of("1700000003.M1P1.host"), checkpoints);
+    }
+
+    @Test
+    void skipsMessagesExpungedAfterListing() throws IOException {
+        write("cur", "1700000001.M1P1.host:2,S");
+        write("cur", "1700000002.M1P1.host:2,S");
+        MaildirArchiveSource source = new MaildirArchiveSource(directory, null);
+        Files.delete(directory.resolve("cur/1700000001.M1P1.host:2,S"));
+
+        List<String> checkpoints = new ArrayList<>();
+        readAll(source, checkpoints, new ArrayList<>());
+
+        assertEquals(List.of("1700000002.M1P1.host"), checkpoints);
+    }
+
+    @Test
+    void rejectsADirectoryThatIsNotAMaildir() {
+        assertThrows(IOException.class, () -> new MaildirArchiveSource(directory, null));
+    }
+
+    private void write(String subdirectory, String name) throws IOException {
+        Path folder = Files.createDirectories(directory.resolve(subdirectory));
+        Files.writeString(folder.resolve(name), "Subject: " + name + "\n\nbody\n", StandardCharsets.US_ASCII);
+    }
+
+    private static void readAll(ArchiveSource source, List<String> checkpoints, List<String> contents) throws IOException {
+        try (source) {
+            ArchiveSource.Entry entry;
+            while ((entry = source.next()) != null) {
+                ByteBuffer content = entry.content();
+                byte[] bytes = new byte[content.remaining()];
+                content.get(bytes);
+                checkpoints.add(entry.checkpoint());
+                contents.add(new String(bytes, StandardCharsets.US_ASCII));
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.email.handler.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MboxArchiveSourceTest {
+
+    private static final String FIRST = "Message-ID: <1@test>\nSubject: one\n\nFirst body\n";
+    // As stored: body lines starting with "From " are quoted
+    private static final String SECOND = "Message-ID: <2@test>\nSubject: two\n\n>From the start\n>>From quoted\n>>>From twice\n";
+    private static final String THIRD = "Message-ID: <3@test>\nSubject: three\n\n" + "x".repeat(300) + "\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void splitsMessagesAtEnvelopeLines() throws IOException {
+        Path mbox = write(FIRST, SECOND, THIRD);
+
+        List<String> messages = readAll(new MboxArchiveSource(mbox, null));
+
+        assertEquals(3, messages.size());
+        assertEquals(FIRST, messages.get(0));
+        assertEquals(THIRD, messages.get(2));
+    }
+
+    @Test
+    void removesOneLevelOfFromQuoting() throws IOException {
+        Path mbox = write(FIRST, SECOND);
+
+        List<String> messages = readAll(new MboxArchiveSource(mbox, null));
+
+        assertEquals("Message-ID: <2@test>\nSubject: two\n\nFrom the start\n>From quoted\n>>From twice\n",
+            messages.get(1));
+    }
+
+    @Test
+    void findsBoundariesAcrossWindowEdges() throws IOException {
+        Path mbox = write(FIRST, SECOND, THIRD, FIRST, SECOND);
+
+        // Windows far smaller than a message, so separators and messages straddle every edge
+        for (long windowSize : new long[] {16, 37, 64, 100}) {
+            List<String> messages = readAll(new MboxArchiveSource(mbox, null, windowSize));
+            assertEquals(readAll(new MboxArchiveSource(mbox, null)), messages, "window " + windowSize);
+            assertEquals(5, messages.size());
+            assertEquals(THIRD, messages.get(2));
+        }
+    }
+
+    @Test
+    void resumesAfterCheckpoint() throws IOException {
+        Path mbox = write(FIRST, SECOND, THIRD);
+        String checkpoint;
+        try (MboxArchiveSource source = new MboxArchiveSource(mbox, null)) {
+            checkpoint = source.next().checkpoint();
+        }
+
+        List<String> rest = readAll(new MboxArchiveSource(mbox, checkpoint));
+
+        assertEquals(2, rest.size());
+        assertEquals(THIRD, rest.get(1));
+    }
+
+    @Test
+    void rejectsCheckpointPastTheEnd() throws IOException {
+        Path mbox = write(FIRST);
+
+        assertThrows(IOException.class, () -> new MboxArchiveSource(mbox, String.valueOf(Files.size(mbox) + 1)));
+    }
+
+    private Path write(String... messages) throws IOException {
+        StringBuilder mbox = new StringBuilder();
+        for (String message : messages) {
+            mbox.append("From sender@example.com Mon May  6 10:00:00 2024\n").append(message);
+        }
+        return Files.writeString(directory.resolve("archive.mbox"), mbox, StandardCharsets.US_ASCII);
+    }
+
+    private static List<String> readAll(ArchiveSource source) throws IOException {
+        List<String> messages = new ArrayList<>();
+        try (source) {
+            ArchiveSource.Entry entry;
+            while ((entry = source.next()) != null) {
+                ByteBuffer content = entry.content();
+                byte[] bytes = new byte[content.remaining()];
+                content.get(bytes);
+                messages.add(new String(bytes, StandardCharsets.US_ASCII));
+            }
+            assertNull(source.next());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,172 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.EmailAttachment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MediaSnifferTest {
+
+    // MPEG-1 Layer III, 128 kbit/s, 44.1 kHz: 417-byte frames
+    private static final String MP3_FRAME = "fffb9064";
+    // ADTS AAC-LC, 44.1 kHz, stereo
+    private static final String ADTS_FRAME = "fff15080";
+
+    static Stream<Arguments> headers() {
+        return Stream.of(
+            // name, content, declared Content-Type, expected format
+            Arguments.of("wav", ascii("RIFF$\10\0\0WAVEfmt "), null, "wav"),
+            Arguments.of("avi", ascii("RIFF\0\20\0\0AVI LIST"), null, "avi"),
+            Arguments.of("riff webp", ascii("RIFF\0\20\0\0WEBPVP8 "), null, MediaSniffer.UNRECOGNIZED),
+            Arguments.of("m4a brand", box("M4A "), null, "m4a"),
+            Arguments.of("quicktime brand", box("qt  "), null, "mov"),
+            Arguments.of("3gp brand", box("3gp4"), "application/octet-stream", "3gp"),
+            // Generic ISO brands: the declared type settles audio versus video
+            Arguments.of("isom declared audio", box("isom"), "audio/mp4", "m4a"),
+            Arguments.of("isom declared video", box("isom"), "video/mp4", "mp4"),
+            Arguments.of("mp42 undeclared", box("mp42"), null, "mp4"),
+            Arguments.of("quicktime moov atom", atom(0x6C, "moov"), null, "mov"),
+            Arguments.of("quicktime mdat to end", atom(0, "mdat"), null, "mov"),
+            Arguments.of("quicktime wide atom", atom(8, "wide"), null, "mov"),
+            Arguments.of("quicktime free atom", atom(0x1000, "free"), "video/quicktime", "mov"),
+            Arguments.of("atom name with bad size", atom(5, "moov"), null, MediaSniffer.UNRECOGNIZED),
+            Arguments.of("flac", ascii("fLaC\0\0\0\42\20\0\20\0"), null, "flac"),
+            Arguments.of("ogg", ascii("OggS\0\2\0\0\0\0\0\0"), null, "ogg"),
+            Arguments.of("amr", ascii("#!AMR\n<\221\27\26¾f"), null, "amr"),
+            Arguments.of("webm", hex("1a45dfa39f4286810142f7810142f2810442f381084282847765626d"), null, "webm"),
+            Arguments.of("matroska", hex("1a45dfa3a34286810142f7810142f2810442f3810842828" + "86d6174726f736b61"), null, "mkv"),
+            Arguments.of("asf declared audio", hex("3026b2758e66cf11a6d900aa0062ce6c"), "audio/x-ms-wma", "wma"),
+            Arguments.of("asf undeclared", hex("3026b2758e66cf11a6d900aa0062ce6c"), null, "wmv"),
+            Arguments.of("id3 then mp3", hex("49443304000000000000" + MP3_FRAME + "0000"), null, "mp3"),
+            Arguments.of("id3 then adts", hex("49443304000000000000" + ADTS_FRAME + "0000"), null, "aac"),
+            Arguments.of("adts stream", frames(ADTS_FRAME, 371, 4), null, "aac"),
+            Arguments.of("mp3 stream", frames(MP3_FRAME, 417, 4), null, "mp3"),
+            // One frame header and nothing after it is not audio
+            Arguments.of("lone mp3 sync", frames(MP3_FRAME, 2048, 1), null, MediaSniffer.UNRECOGNIZED),
+            Arguments.of("lone adts sync", frames(ADTS_FRAME, 2048, 1), null, MediaSniffer.UNRECOGNIZED),
+            Arguments.of("pdf", ascii("%PDF-1.7\n%âãÏÓ\n"), "audio/mpeg", MediaSniffer.UNRECOGNIZED),
+            Arguments.of("zip", hex("504b0304140000000800" + "00000000"), null, MediaSniffer.UNRECOGNIZED),
+            Arguments.of("jpeg", hex("ffd8ffe000104a4649460001"), null, MediaSniffer.UNRECOGNIZED)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("headers")
+    void recognisesFormat(String name, byte[] content, String contentType, String expected) {
+        assertEquals(expected, MediaSniffer.sniff(content, contentType));
+    }
+
+    @Test
+    void needsTwelveBytes() {
+        assertNull(MediaSniffer.sniff(ascii("RIFF"), null));
+        assertNull(MediaSniffer.sniff(null, "audio/wav"));
+    }
+
+    @Test
+    void randomBytesAreNotMedia() {
+        Random random = new Random(42);
+        byte[] content = new byte[4096];
+        for (int i = 0; i < 2000; i++) {
+            random.nextBytes(content);
+            assertEquals(MediaSniffer.UNRECOGNIZED, MediaSniffer.sniff(content, null), "sample " + i);
+        }
+    }
+
+    @Test
+    void frameSyncInRandomBytesIsRarelyTakenForAudio() {
+        // A valid header followed by noise only passes if noise happens to repeat it
+        Random random = new Random(7);
+        byte[] content = new byte[4096];
+        int recognized = 0;
+        for (int i = 0; i < 1000; i++) {
+            random.nextBytes(content);
+            System.arraycopy(HexFormat.of().parseHex(MP3_FRAME), 0, content, 0, 4);
+            if (!MediaSniffer.UNRECOGNIZED.equals(MediaSniffer.sniff(content, null))) {
+                recognized++;
+            }
+        }
+        assertTrue(recognized < 50, recognized + " of 1000 noise samples taken for MP3");
+    }
+
+    @Test
+    void declaredMediaFallsBackToTheExtensionWhenUnrecognised() {
+        EmailHandlerProperties properties = new EmailHandlerProperties();
+        AudioVideoProcessingService service = new AudioVideoProcessingService();
+        ReflectionTestUtils.setField(service, "properties", properties);
+
+        // An MP3 with junk before its first frame, sent as audio/mpeg
+        assertTrue(service.isAudioVideoFile(attachment("talk.mp3", "audio/mpeg", MediaSniffer.UNRECOGNIZED)));
+        assertTrue(service.isAudioVideoFile(attachment("clip.mov", "video/quicktime", MediaSniffer.UNRECOGNIZED)));
+        // Not declared as media: the content decides
+        assertFalse(service.isAudioVideoFile(attachment("report.mp4", "application/pdf", MediaSniffer.UNRECOGNIZED)));
+        assertFalse(service.isAudioVideoFile(attachment("report.mp4", null, MediaSniffer.UNRECOGNIZED)));
+        // Declared as media, but neither content nor name is a supported format
+        assertFalse(service.isAudioVideoFile(attachment("cover.bin", "audio/mpeg", MediaSniffer.UNRECOGNIZED)));
+        // Recognised content wins over the name
+        assertTrue(service.isAudioVideoFile(attachment("memo", "application/octet-stream", "m4a")));
+        // Never sniffed: the name
+        assertTrue(service.isAudioVideoFile(attachment("interview.WAV", null, null)));
+    }
+
+    @Test
+    void mapsFormatsToMimeTypes() {
+        assertEquals("audio/mpeg", MediaSniffer.mimeType("mp3"));
+        assertEquals("video/quicktime", MediaSniffer.mimeType("mov"));
+        assertNull(MediaSniffer.mimeType(MediaSniffer.UNRECOGNIZED));
+        assertNull(MediaSniffer.mimeType(null));
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] hex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+
+    // An ISO base media file starting with an ftyp box of the given major brand
+    private static byte[] box(String brand) {
+        return ascii("\0\0\0\30ftyp" + brand + "\0\0\0\0isom");
+    }
+
+    // A QuickTime atom header of the given size and type, padded with zeros
+    private static byte[] atom(int size, String type) {
+        byte[] content = new byte[64];
+        content[0] = (byte) (size >>> 24);
+        content[1] = (byte) (size >>> 16);
+        content[2] = (byte) (size >>> 8);
+        content[3] = (byte) size;
+        System.arraycopy(ascii(type), 0, content, 4, 4);
+        return content;
+    }
+
+    private static EmailAttachment attachment(String filename, String contentType, String sniffedFormat) {
+        EmailAttachment attachment = new EmailAttachment(filename, contentType, new byte[0]);
+        attachment.setSniffedFormat(sniffedFormat);
+        return attachment;
+    }
+
+    // The frame header every frameLength bytes, zeros in between
+    private static byte[] frames(String header, int frameLength, int count) {
+        byte[] content = new byte[frameLength * count];
+        byte[] bytes = hex(header);
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(bytes, 0, content, i * frameLength, bytes.length);
+        }
+        return Arrays.copyOf(content, Math.max(content.length, 64));
+    }
+}
@@ -0,0 +1,169 @@
+package com.email.handler.service;
+
+import com.email.handler.config.EmailHandlerProperties;
+import com.email.handler.model.EmailMessage;
+import com.email.handler.pipeline.PipelineMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class WebhookDeliverySinkTest {
+
+    private static final String URL = "http://webhook.test/emails";
+
+    private final EmailHandlerProperties.Webhook webhook = new EmailHandlerProperties.Webhook();
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private PipelineMetrics pipelineMetrics;
+    private WebhookDeliverySink sink;
+
+    @BeforeEach
+    void setUp() {
+        webhook.setUrl(URL);
+        pipelineMetrics = new PipelineMetrics();
+        ReflectionTestUtils.setField(pipelineMetrics, "registry", new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sink != null) {
+            sink.close();
+        }
+    }
+
+    @Test
+    void postsFullBatchAsNdjson() throws Exception {
+        webhook.setBatchSize(3);
+        webhook.setLinger(60_000);
+        webhook.setAuthorization("Bearer token");
+        expectPost(HttpStatus.OK);
+        sink = new WebhookDeliverySink(webhook, restTemplate, pipelineMetrics);
+
+        List<CompletableFuture<String>> deliveries = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            deliveries.add(sink.deliver(email("<" + i + "@test>"), false));
+        }
+
+        // A full batch goes out without waiting for the linger time
+        for (int i = 0; i < 3; i++) {
+            assertEquals("<" + (i + 1) + "@test>", deliveries.get(i).get(5, TimeUnit.SECONDS));
+        }
+        server.verify();
+        assertEquals(1, bodies.size());
+        String[] lines = bodies.get(0).split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < 3; i++) {
+            JsonNode record = DeliveryRecords.OBJECT_MAPPER.readTree(lines[i]);
+            assertEquals("email", record.get("type").asText());
+            assertEquals("<" + (i + 1) + "@test>", record.get("messageId").asText());
+        }
+    }
+
+    @Test
+    void postsPartialBatchAfterLinger() throws Exception {
+        webhook.setBatchSize(100);
+        webhook.setLinger(200);
+        webhook.setFormat(EmailHandlerProperties.WebhookFormat.JSON);
+        expectPost(HttpStatus.OK);
+        sink = new WebhookDeliverySink(webhook, restTemplate, pipelineMetrics);
+
+        long start = System.nanoTime();
+        CompletableFuture<String> first = sink.deliver(email("<1@test>"), false);
+        CompletableFuture<Void> followUp = sink.deliverFollowUp(email("<2@test>"));
+
+        first.get(5, TimeUnit.SECONDS);
+        followUp.get(5, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200), "sent before the linger time");
+        server.verify();
+        JsonNode batch = DeliveryRecords.OBJECT_MAPPER.readTree(bodies.get(0));
+        assertEquals(2, batch.size());
+        assertEquals("email", batch.get(0).get("type").asText());
+        assertEquals("transcripts", batch.get(1).get("type").asText());
+    }
+
+    @Test
+    void failsEveryRecordOfARejectedBatch() {
+        webhook.setBatchSize(2);
+        webhook.setLinger(60_000);
+        server.expect(once(), requestTo(URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        sink = new WebhookDeliverySink(webhook, restTemplate, pipelineMetrics);
+
+        CompletableFuture<String> first = sink.deliver(email("<1@test>"), false);
+        CompletableFuture<String> second = sink.deliver(email("<2@test>"), false);
+
+        for (CompletableFuture<String> delivery : List.of(first, second)) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> delivery.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(HttpServerErrorException.class, error.getCause());
+        }
+        server.verify();
+    }
+
+    @Test
+    void sendsQueuedRecordsOnClose() throws Exception {
+        webhook.setBatchSize(100);
+        webhook.setLinger(60_000);
+        expectPost(HttpStatus.OK);
+        sink = new WebhookDeliverySink(webhook, restTemplate, pipelineMetrics);
+
+        CompletableFuture<String> delivery = sink.deliver(email("<1@test>"), false);
+        sink.close();
+
+        assertEquals("<1@test>", delivery.get(5, TimeUnit.SECONDS));
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+            () -> sink.deliver(email("<2@test>"), false).get());
+        assertInstanceOf(IllegalStateException.class, rejected.getCause());
+        sink = null;
+    }
+
+    private void expectPost(HttpStatus status) {
+        server.expect(once(), requestTo(URL))
+            .andExpect(method(HttpMethod.POST))
+            .andExpect(request -> {
+                if (webhook.getAuthorization() != null) {
+                    header("Authorization", webhook.getAuthorization()).match(request);
+                }
+                bodies.add(((MockClientHttpRequest) request).getBodyAsString());
+            })
+            .andRespond(status == HttpStatus.OK ? withSuccess() : withStatus(status));
+    }
+
+    static EmailMessage email(String messageId) {
+        EmailMessage email = new EmailMessage();
+        email.setMessageId(messageId);
+        email.setFrom("sender@example.com");
+        email.setTo("recipient@example.com");
+        email.setSubject("Subject " + messageId);
+        email.setContent("Body");
+        email.setContentType("text/plain");
+        email.setAttachments(new ArrayList<>());
+        return email;
+    }
+}